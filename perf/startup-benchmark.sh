@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Startup time and memory of the faststart build in each mode: plain, AOT, AppCDS, and AOT with AppCDS.
+# Needs a reachable MySQL (DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD), the same as the training run.
+#
+#   ./mvnw -Pfaststart -DskipTests package
+#   perf/startup-benchmark.sh
+#
+# Time to first request runs from launching the JVM to the first successful GET /actuator/info.
+# Resident memory is VmRSS right after that request.
+# Results are written to target/perf/startup.csv as mode,run,time_to_first_request_ms,rss_mb.
+set -euo pipefail
+
+DIR=${DIR:-target/faststart}
+JAR=${JAR:-$(ls "$DIR"/twitter-backend-*.jar | head -n 1)}
+ARCHIVE=${ARCHIVE:-$DIR/application.jsa}
+PORT=${PORT:-8080}
+RUNS=${RUNS:-5}
+OUT=target/perf
+mkdir -p "$OUT"
+
+[ -f "$ARCHIVE" ] || { echo "No CDS archive at $ARCHIVE, build with -Pfaststart first" >&2; exit 1; }
+
+declare -A FLAGS=(
+    [plain]=""
+    [aot]="-Dspring.aot.enabled=true"
+    [cds]="-XX:SharedArchiveFile=$ARCHIVE"
+    [aot-cds]="-XX:SharedArchiveFile=$ARCHIVE -Dspring.aot.enabled=true"
+)
+
+echo "mode,run,time_to_first_request_ms,rss_mb" > "$OUT/startup.csv"
+
+for mode in plain aot cds aot-cds; do
+    for run in $(seq 1 "$RUNS"); do
+        start=$(date +%s%N)
+        # shellcheck disable=SC2086
+        java ${FLAGS[$mode]} -jar "$JAR" --server.port="$PORT" --app.snowflake.node-id=0 > "$OUT/startup-$mode-$run.log" 2>&1 &
+        pid=$!
+        trap 'kill $pid 2>/dev/null || true' EXIT
+
+        until curl -sf "http://localhost:$PORT/actuator/info" > /dev/null; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$mode run $run exited, see $OUT/startup-$mode-$run.log" >&2
+                exit 1
+            fi
+            sleep 0.05
+        done
+        elapsed_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+        rss_mb=$(awk '/VmRSS/ { printf "%.1f", $2 / 1024 }' "/proc/$pid/status")
+        echo "$mode,$run,$elapsed_ms,$rss_mb" | tee -a "$OUT/startup.csv"
+
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+        trap - EXIT
+    done
+done
@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Compares the platform thread pool with virtual threads under the same load.
+# Needs wrk (https://github.com/wg/wrk), a reachable MySQL (DATABASE_URL, DATABASE_USER, DATABASE_PASSWORD)
+# and an existing user to request verification codes for.
+#
+#   ./mvnw -DskipTests package
+#   USERNAME=TheDudeDudeson123 perf/virtual-threads-comparison.sh
+#
+# Results are written to target/perf/virtual-threads.csv as mode,connections,requests_per_second,p99_ms.
+set -euo pipefail
+
+JAR=${JAR:-$(ls target/twitter-backend-*.jar | head -n 1)}
+PORT=${PORT:-8080}
+DURATION=${DURATION:-30s}
+CONNECTIONS=${CONNECTIONS:-"50 200 800"}
+USERNAME=${USERNAME:?Set USERNAME to an existing user}
+OUT=target/perf
+mkdir -p "$OUT"
+
+cat > "$OUT/verification-code.lua" <<LUA
+wrk.method = "POST"
+wrk.headers["Content-Type"] = "application/json"
+wrk.body = '{"username": "$USERNAME"}'
+LUA
+
+# Converts wrk's "1.23ms" / "1.23s" / "123us" into milliseconds
+to_ms() {
+    awk '{ v = $1; if (v ~ /us$/) { sub(/us$/, "", v); print v / 1000 } else if (v ~ /ms$/) { sub(/ms$/, "", v); print v } else { sub(/s$/, "", v); print v * 1000 } }'
+}
+
+echo "mode,connections,requests_per_second,p99_ms" > "$OUT/virtual-threads.csv"
+
+for mode in platform virtual; do
+    virtual=false
+    [ "$mode" = virtual ] && virtual=true
+
+    # The rate limiter would turn every request after the first few into a 429
+    java -jar "$JAR" --server.port="$PORT" --app.snowflake.node-id=0 --mail.transport=memory --app.rate-limit.enabled=false \
+        --spring.threads.virtual.enabled="$virtual" > "$OUT/$mode.log" 2>&1 &
+    pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+        sleep 1
+    done
+
+    for connections in $CONNECTIONS; do
+        result=$(wrk -t8 -c"$connections" -d"$DURATION" --latency -s "$OUT/verification-code.lua" \
+            "http://localhost:$PORT/authenticate/email/verification/code")
+        rps=$(echo "$result" | awk '/Requests\/sec/ { print $2 }')
+        p99=$(echo "$result" | awk '$1 == "99%" { print $2 }' | to_ms)
+        echo "$mode,$connections,$rps,$p99" | tee -a "$OUT/virtual-threads.csv"
+    done
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+done
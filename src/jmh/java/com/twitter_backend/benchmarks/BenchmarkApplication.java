@@ -0,0 +1,43 @@
+package com.twitter_backend.benchmarks;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.twitter_backend.TwitterBackendApplication;
+import com.twitter_backend.models.Role;
+import com.twitter_backend.repositories.RoleRepository;
+import com.twitter_backend.services.RoleRegistry;
+
+// Starts the real application context against an in-memory H2 database and the in-memory mail transport
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String name, String... extraArgs) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--mail.transport=memory",
+                "--app.snowflake.node-id=0",
+                "--logging.level.root=WARN"
+        };
+        String[] allArgs = new String[args.length + extraArgs.length];
+        System.arraycopy(args, 0, allArgs, 0, args.length);
+        System.arraycopy(extraArgs, 0, allArgs, args.length, extraArgs.length);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TwitterBackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(allArgs);
+
+        context.getBean(RoleRepository.class).save(new Role(1, "USER"));
+        context.getBean(RoleRegistry.class).refresh();
+        return context;
+    }
+
+}
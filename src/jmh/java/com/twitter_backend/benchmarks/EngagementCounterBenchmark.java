@@ -0,0 +1,129 @@
+package com.twitter_backend.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.twitter_backend.models.EngagementType;
+import com.twitter_backend.services.EngagementCounterService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Likes per second from 16 threads spread over `tweets` tweets. With one tweet every like lands on the
+// same row.
+//   naiveUpdate: an autocommitted UPDATE ... SET likes = likes + 1 per like, each waiting on the row lock
+//   writeBehind: EngagementCounterService.increment, with the service flushing every 100 ms on its own
+//   thread as it would in the application
+// Runs on H2 by default. For InnoDB row lock waits, point it at a scratch MySQL schema:
+//   BENCH_JDBC_URL=jdbc:mysql://localhost/bench BENCH_JDBC_USER=... BENCH_JDBC_PASSWORD=... \
+//   ./mvnw -Pbenchmarks test-compile exec:exec -Djmh.includes=EngagementCounterBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class EngagementCounterBenchmark {
+
+    @Param({ "1", "1000" })
+    public int tweets;
+
+    private DriverManagerDataSource dataSource;
+    private EngagementCounterService counterService;
+    private ScheduledExecutorService flusher;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = new DriverManagerDataSource(
+                env("BENCH_JDBC_URL", "jdbc:h2:mem:engagement;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000"),
+                env("BENCH_JDBC_USER", "sa"), env("BENCH_JDBC_PASSWORD", ""));
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS tweet_counters");
+            statement.execute("CREATE TABLE tweet_counters (tweet_id BIGINT PRIMARY KEY, "
+                    + "likes BIGINT NOT NULL, retweets BIGINT NOT NULL, views BIGINT NOT NULL)");
+            for (int tweet = 0; tweet < tweets; tweet++) {
+                statement.execute("INSERT INTO tweet_counters VALUES (" + tweet + ", 0, 0, 0)");
+            }
+        }
+
+        counterService = new EngagementCounterService(new JdbcTemplate(dataSource), null, null,
+                new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(), 500, 100_000);
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("engagement-flush").daemon(true).factory());
+        flusher.scheduleWithFixedDelay(counterService::flush, 100, 100, TimeUnit.MILLISECONDS);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        flusher.shutdownNow();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        counterService.flushOnShutdown();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE tweet_counters");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadConnection {
+
+        Connection connection;
+        PreparedStatement update;
+
+        @Setup(Level.Trial)
+        public void setUp(EngagementCounterBenchmark benchmark) throws Exception {
+            connection = benchmark.dataSource.getConnection();
+            connection.setAutoCommit(true);
+            update = connection.prepareStatement("UPDATE tweet_counters SET likes = likes + 1 WHERE tweet_id = ?");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            connection.close();
+        }
+    }
+
+    private long nextTweet() {
+        return ThreadLocalRandom.current().nextInt(tweets);
+    }
+
+    @Benchmark
+    public int naiveUpdate(ThreadConnection thread) throws Exception {
+        thread.update.setLong(1, nextTweet());
+        return thread.update.executeUpdate();
+    }
+
+    @Benchmark
+    public void writeBehind() {
+        counterService.increment(nextTweet(), EngagementType.LIKE);
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.twitter_backend.benchmarks;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.twitter_backend.services.FollowGraph;
+
+// FollowGraph queries at 10M users following 50 others each, 500M edges. The graph is generated straight
+// into the bulk-load methods, so setup takes a few minutes and the fork needs a large heap; 500M edges are
+// about 4 GB of int arrays across both directions. Run a smaller graph with -p users=1000000.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = { "-Xms14g", "-Xmx14g" })
+public class FollowGraphBenchmark {
+
+    @Param({ "10000000" })
+    public int users;
+
+    @Param({ "50" })
+    public int followsPerUser;
+
+    private FollowGraph graph;
+    private UUID[] userIds;
+
+    @Setup
+    public void setUp() {
+        graph = new FollowGraph(null);
+        userIds = new UUID[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = new UUID(i, i);
+            graph.intern(userIds[i]);
+        }
+
+        int[][] following = new int[users][];
+        int[] followerCounts = new int[users];
+        for (int user = 0; user < users; user++) {
+            int self = user;
+            following[user] = new SplittableRandom(user).ints(0, users).filter(id -> id != self).distinct()
+                    .limit(followsPerUser).sorted().toArray();
+            for (int followee : following[user]) {
+                followerCounts[followee]++;
+            }
+        }
+        int[][] followers = new int[users][];
+        for (int user = 0; user < users; user++) {
+            followers[user] = new int[followerCounts[user]];
+            followerCounts[user] = 0;
+        }
+        // Followers come out sorted because users are visited in order
+        for (int user = 0; user < users; user++) {
+            for (int followee : following[user]) {
+                followers[followee][followerCounts[followee]++] = user;
+            }
+            graph.putFollowing(user, following[user]);
+            following[user] = null;
+        }
+        for (int user = 0; user < users; user++) {
+            graph.putFollowers(user, followers[user]);
+        }
+        graph.finishLoading();
+    }
+
+    private UUID randomUser() {
+        return userIds[ThreadLocalRandom.current().nextInt(users)];
+    }
+
+    @Benchmark
+    public boolean isFollowing() {
+        return graph.isFollowing(randomUser(), randomUser());
+    }
+
+    @Benchmark
+    public int followerCount() {
+        return graph.followerCount(randomUser());
+    }
+
+    @Benchmark
+    public boolean isMutual() {
+        return graph.isMutual(randomUser(), randomUser());
+    }
+
+    @Benchmark
+    public List<UUID> mutualFollows() {
+        return graph.mutualFollows(randomUser(), 100);
+    }
+
+    // The write path without the database: swaps in a new adjacency on both ends
+    @Benchmark
+    @Threads(1)
+    public void followAndUnfollow() {
+        UUID follower = randomUser();
+        UUID followee = randomUser();
+        graph.follow(follower, followee);
+        graph.unfollow(follower, followee);
+    }
+
+}
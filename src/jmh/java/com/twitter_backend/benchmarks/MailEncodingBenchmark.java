@@ -0,0 +1,32 @@
+package com.twitter_backend.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.twitter_backend.services.GmailMailTransport;
+
+// Building the MIME message and Base64 encoding it, everything a Gmail send does before the HTTP call
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailEncodingBenchmark {
+
+    @Benchmark
+    public String encodeVerificationMail() throws Exception {
+        return GmailMailTransport.encode("noreply@example.com", "dude@example.com", "Your verification code",
+                "This is your verification code: 123456789");
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.twitter_backend.benchmarks;
+
+import java.sql.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.RegistrationObject;
+import com.twitter_backend.services.UserService;
+
+// UserService.registerUser end to end: username allocation, role lookup and the insert, against H2
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private final AtomicLong emailCounter = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("registration");
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ApplicationUser registerUser() {
+        RegistrationObject registration = new RegistrationObject("TheDude", "Dudeson",
+                "dude" + emailCounter.incrementAndGet() + "@example.com", Date.valueOf("1970-01-01"));
+        return userService.registerUser(registration);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.twitter_backend.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.data.domain.Limit;
+
+import com.twitter_backend.models.CursorPage;
+import com.twitter_backend.models.Tweet;
+import com.twitter_backend.models.idGenerators.SnowflakeIdFactory;
+import com.twitter_backend.repositories.TweetRepository;
+import com.twitter_backend.services.FollowGraph;
+import com.twitter_backend.services.RecentWriteTracker;
+import com.twitter_backend.services.TimelineService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Post and home timeline read latency for one author as their follower count grows. Every follower has
+// read their timeline, so every one of them has a buffer to push into. The tweets table is an in-memory
+// map, so the numbers leave out database time. At and above followerThreshold (10000) the author is
+// no longer fanned out and reads pull their tweets instead.
+//   post: time until the fan-out batches are queued, what a posting request waits for. Once the queue is
+//   full this includes running batches on the posting thread.
+//   postAndFanOut: time until every follower's buffer has the tweet
+//   readTimeline: one page of 20 for a follower
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class TimelineBenchmark {
+
+    private static final int KEPT_TWEETS = 1000;
+
+    @Param({ "100", "1000", "9999", "100000" })
+    public int followers;
+
+    private final SnowflakeIdFactory snowflakeIdFactory = new SnowflakeIdFactory(1);
+    private final ConcurrentSkipListMap<Long, Tweet> tweets = new ConcurrentSkipListMap<>();
+    private final UUID author = UUID.randomUUID();
+    private TimelineService timelineService;
+    private UUID reader;
+
+    @Setup
+    public void setUp() {
+        FollowGraph followGraph = new FollowGraph(null);
+        followGraph.finishLoading();
+        List<UUID> followerIds = new ArrayList<>(followers);
+        for (int i = 0; i < followers; i++) {
+            UUID follower = UUID.randomUUID();
+            followerIds.add(follower);
+            followGraph.follow(follower, author);
+        }
+        reader = followerIds.get(0);
+
+        TweetRepository tweetRepository = (TweetRepository) Proxy.newProxyInstance(
+                TweetRepository.class.getClassLoader(), new Class<?>[] { TweetRepository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllById" -> {
+                        List<Tweet> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Tweet tweet = tweets.get((Long) id);
+                            if (tweet != null) {
+                                found.add(tweet);
+                            }
+                        }
+                        yield found;
+                    }
+                    case "findByAuthorIdInAndTweetIdLessThanOrderByTweetIdDesc" -> {
+                        if (!((Collection<?>) args[0]).contains(author)) {
+                            yield List.of();
+                        }
+                        int limit = ((Limit) args[2]).max();
+                        yield tweets.headMap((Long) args[1]).descendingMap().values().stream().limit(limit).toList();
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryTweetRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        timelineService = new TimelineService(followGraph, null, tweetRepository, new RecentWriteTracker(5000, 1000),
+                new SimpleMeterRegistry(), 800, followers + 1, 60_000, 10_000, 1000, 2, 10_000);
+        for (UUID follower : followerIds) {
+            timelineService.getHomeTimeline(follower, null, 20);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        timelineService.shutdown();
+    }
+
+    private Tweet newTweet() {
+        Tweet tweet = new Tweet(snowflakeIdFactory.next(), author, "The Dude abides");
+        tweets.put(tweet.getTweetId(), tweet);
+        if (tweets.size() > KEPT_TWEETS) {
+            tweets.pollFirstEntry();
+        }
+        return tweet;
+    }
+
+    @Benchmark
+    public Object post() {
+        return timelineService.fanOut(newTweet());
+    }
+
+    @Benchmark
+    public Object postAndFanOut() {
+        return timelineService.fanOut(newTweet()).join();
+    }
+
+    @Benchmark
+    public CursorPage<Tweet> readTimeline() {
+        return timelineService.getHomeTimeline(reader, null, 20);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.twitter_backend.benchmarks;
+
+import java.sql.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.RegistrationObject;
+import com.twitter_backend.models.UserSummary;
+import com.twitter_backend.repositories.UserRepository;
+import com.twitter_backend.services.UserService;
+
+// getUserByUsername through the user cache, the natural-id lookup it falls back to on a miss (served by the
+// second-level cache once warm), and a summary query that always goes to the database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserLookupBenchmark {
+
+    @Param({ "10000" })
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private String[] usernames;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("lookup");
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+
+        usernames = new String[users];
+        for (int i = 0; i < users; i++) {
+            usernames[i] = userService.registerUser(new RegistrationObject("TheDude", "Dudeson" + (i % 100),
+                    "dude" + i + "@example.com", Date.valueOf("1970-01-01"))).getUsername();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private String randomUsername() {
+        return usernames[ThreadLocalRandom.current().nextInt(usernames.length)];
+    }
+
+    @Benchmark
+    public ApplicationUser getUserByUsername() {
+        return userService.getUserByUsername(randomUsername());
+    }
+
+    @Benchmark
+    public ApplicationUser findByUsername() {
+        return userRepository.findByUsername(randomUsername()).orElseThrow();
+    }
+
+    @Benchmark
+    public UserSummary findSummaryByUsername() {
+        return userRepository.findSummaryByUsername(randomUsername()).orElseThrow();
+    }
+
+}
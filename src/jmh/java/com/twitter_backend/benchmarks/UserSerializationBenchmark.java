@@ -0,0 +1,82 @@
+package com.twitter_backend.benchmarks;
+
+import java.sql.Date;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.UserProfile;
+import com.twitter_backend.models.UserSummary;
+import com.twitter_backend.services.RoleRegistry;
+
+// Jackson serialization with the application's ObjectMapper (Blackbird included): the ApplicationUser entity with
+// its authorities, and the UserSummary and UserProfile records the endpoints return instead
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSerializationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private ApplicationUser user;
+    private UserSummary summary;
+    private UserProfile profile;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("serialization");
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        user = new ApplicationUser();
+        user.setUserId(UUID.randomUUID());
+        user.setFirstName("TheDude");
+        user.setLastName("Dudeson");
+        user.setEmail("dude@example.com");
+        user.setPhoneNumber("0701234567");
+        user.setDateOfBirth(Date.valueOf("1970-01-01"));
+        user.setUsername("TheDudeDudeson123456789");
+        user.setAuthorities(Set.of(context.getBean(RoleRegistry.class).getByAuthority("USER")));
+        user.setEnabled(true);
+        summary = UserSummary.from(user);
+        profile = new UserProfile(user.getUserId(), user.getUsername(), user.getFirstName(), user.getLastName());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeSummary() throws Exception {
+        return objectMapper.writeValueAsBytes(summary);
+    }
+
+    @Benchmark
+    public byte[] serializeProfile() throws Exception {
+        return objectMapper.writeValueAsBytes(profile);
+    }
+
+}
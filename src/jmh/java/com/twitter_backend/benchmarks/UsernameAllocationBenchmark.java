@@ -0,0 +1,162 @@
+package com.twitter_backend.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.repositories.UserRepository;
+import com.twitter_backend.services.AvailabilityService;
+import com.twitter_backend.services.UsernameAllocator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Database round trips per registration for UsernameAllocator against the old one-probe-at-a-time loop.
+// The users table is simulated: a name counts as taken when its hash falls under the density that
+// existingUsers spread over baseNames gives. That models 10M users without holding 10M strings.
+// In the JSON results, roundTrips / registrations of a run is the number of queries per registration.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class UsernameAllocationBenchmark {
+
+    private static final long SUFFIX_RANGE = 1_000_000_000L;
+    private static final int BATCH_ROWS = 500;
+
+    @Param({ "10000000" })
+    public long existingUsers;
+
+    // 1 means every user has the same first and last name, the worst case
+    @Param({ "1", "1000" })
+    public int baseNames;
+
+    private double takenFraction;
+    private UsernameAllocator allocator;
+    private UserRepository userRepository;
+    private long queries;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class RoundTrips {
+        public long roundTrips;
+        public long registrations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            roundTrips = 0;
+            registrations = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        takenFraction = Math.min(1.0, (double) existingUsers / baseNames / SUFFIX_RANGE);
+        userRepository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] { UserRepository.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findExistingUsernames":
+                            queries++;
+                            List<String> taken = new ArrayList<>();
+                            for (Object candidate : (Collection<?>) args[0]) {
+                                if (isTaken((String) candidate)) {
+                                    taken.add((String) candidate);
+                                }
+                            }
+                            return taken;
+                        case "findByUsername":
+                            queries++;
+                            return isTaken((String) args[0]) ? Optional.of(new ApplicationUser()) : Optional.empty();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "SimulatedUserRepository";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        // The availability filter is never built here, so every batch is settled by the simulated query
+        AvailabilityService availabilityService = new AvailabilityService(userRepository, null,
+                new SimpleMeterRegistry(), 1, 0.01, Long.MAX_VALUE);
+        allocator = new UsernameAllocator(userRepository, availabilityService, 8);
+    }
+
+    private boolean isTaken(String username) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            hash = (hash ^ username.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (hash >>> 11) * 0x1.0p-53 < takenFraction;
+    }
+
+    private String randomBaseName() {
+        return "TheDudeDudeson" + ThreadLocalRandom.current().nextInt(baseNames);
+    }
+
+    @Benchmark
+    public String allocator(RoundTrips counters) {
+        long before = queries;
+        String username = allocator.allocate(randomBaseName());
+        counters.roundTrips += queries - before;
+        counters.registrations++;
+        return username;
+    }
+
+    // One batch registration chunk, scored per row
+    @Benchmark
+    @OperationsPerInvocation(BATCH_ROWS)
+    public List<String> allocateAll(RoundTrips counters) {
+        List<String> names = new ArrayList<>(BATCH_ROWS);
+        for (int i = 0; i < BATCH_ROWS; i++) {
+            names.add(randomBaseName());
+        }
+        long before = queries;
+        List<String> usernames = allocator.allocateAll(names);
+        counters.roundTrips += queries - before;
+        counters.registrations += BATCH_ROWS;
+        return usernames;
+    }
+
+    // The loop registerUser used before UsernameAllocator
+    @Benchmark
+    public String randomProbe(RoundTrips counters) {
+        long before = queries;
+        String name = randomBaseName();
+        String username;
+        do {
+            username = name + (long) Math.floor(Math.random() * 1_000_000_000);
+        } while (userRepository.findByUsername(username).isPresent());
+        counters.roundTrips += queries - before;
+        counters.registrations++;
+        return username;
+    }
+
+}
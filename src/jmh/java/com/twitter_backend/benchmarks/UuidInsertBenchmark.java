@@ -0,0 +1,107 @@
+package com.twitter_backend.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.twitter_backend.models.idGenerators.UuidV7Factory;
+
+// Rows per second inserted into a BINARY(16) primary key that already holds preloadedRows rows,
+// with random v4 ids against time-ordered v7 ids. Runs on H2 by default. For numbers that reflect
+// InnoDB page splits, point it at a scratch MySQL schema:
+//   BENCH_JDBC_URL=jdbc:mysql://localhost/bench BENCH_JDBC_USER=... BENCH_JDBC_PASSWORD=... \
+//   ./mvnw -Pbenchmarks test-compile exec:exec -Djmh.includes=UuidInsertBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({ "v4", "v7" })
+    public String version;
+
+    @Param({ "1000000", "5000000" })
+    public int preloadedRows;
+
+    private final UuidV7Factory uuidV7Factory = new UuidV7Factory();
+    private Connection connection;
+    private PreparedStatement insert;
+
+    @Setup
+    public void setUp() throws Exception {
+        String url = env("BENCH_JDBC_URL", "jdbc:h2:mem:uuid_" + version + ";DB_CLOSE_DELAY=-1");
+        connection = DriverManager.getConnection(url, env("BENCH_JDBC_USER", "sa"), env("BENCH_JDBC_PASSWORD", ""));
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_users");
+            statement.execute("CREATE TABLE bench_users (user_id BINARY(16) PRIMARY KEY, username VARCHAR(64))");
+        }
+        connection.commit();
+
+        insert = connection.prepareStatement("INSERT INTO bench_users (user_id, username) VALUES (?, ?)");
+        for (int loaded = 0; loaded < preloadedRows; loaded += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? value : defaultValue;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE bench_users");
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    private UUID nextId() {
+        return version.equals("v7") ? uuidV7Factory.next() : UUID.randomUUID();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int insertBatch() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            UUID id = nextId();
+            buffer.clear();
+            buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+            insert.setBytes(1, buffer.array().clone());
+            insert.setString(2, "TheDudeDudeson" + i);
+            insert.addBatch();
+        }
+        int inserted = insert.executeBatch().length;
+        connection.commit();
+        return inserted;
+    }
+
+}
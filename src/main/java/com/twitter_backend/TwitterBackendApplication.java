@@ -6,6 +6,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.twitter_backend.models.ApplicationUser;
 import com.twitter_backend.models.Role;
@@ -14,6 +15,7 @@ import com.twitter_backend.repositories.UserRepository;
 import com.twitter_backend.services.UserService;
 
 @SpringBootApplication
+@EnableScheduling
 public class TwitterBackendApplication {
 
 	public static void main(String[] args) {
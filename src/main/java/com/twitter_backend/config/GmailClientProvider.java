@@ -0,0 +1,160 @@
+package com.twitter_backend.config;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
+import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.store.FileDataStoreFactory;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.GmailScopes;
+
+// Builds the Gmail client off the startup path. Once the application is ready (or on the first send,
+// whichever comes first) a background thread loads the stored OAuth token from the tokens directory.
+// Without a stored token the interactive browser flow is only started when
+// mail.gmail.interactive-authorization is true, on its own port. Until the client is ready, get() throws
+// and the outbox retries the message later. A failed load, or one that found no token, is retried at most
+// once every mail.gmail.retry-interval-ms however often the client is asked for.
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "gmail", matchIfMissing = true)
+public class GmailClientProvider {
+
+    public enum State {
+        NOT_STARTED,
+        LOADING,
+        READY,
+        NEEDS_AUTHORIZATION,
+        FAILED
+    }
+
+    private static final String APPLICATION_NAME = "twitter2025-backend";
+    private static final String TOKEN_USER = "user";
+    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+    private static final List<String> SCOPES = Collections.singletonList(GmailScopes.GMAIL_SEND);
+
+    private final String credentialsPath;
+    private final String tokensDirectory;
+    private final int receiverPort;
+    private final boolean interactiveAuthorization;
+    private final long retryIntervalNanos;
+
+    private volatile State state = State.NOT_STARTED;
+    // When a FAILED or NEEDS_AUTHORIZATION state may be retried, guarded by this
+    private long retryAtNanos;
+    private volatile Gmail gmail;
+    private volatile String error;
+
+    @Autowired
+    public GmailClientProvider(@Value("${mail.gmail.credentials-path:/credentials.json}") String credentialsPath,
+            @Value("${mail.gmail.tokens-directory:tokens}") String tokensDirectory,
+            @Value("${mail.gmail.receiver-port:8889}") int receiverPort,
+            @Value("${mail.gmail.interactive-authorization:false}") boolean interactiveAuthorization,
+            @Value("${mail.gmail.retry-interval-ms:60000}") long retryIntervalMs) {
+        this.credentialsPath = credentialsPath;
+        this.tokensDirectory = tokensDirectory;
+        this.receiverPort = receiverPort;
+        this.interactiveAuthorization = interactiveAuthorization;
+        this.retryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(retryIntervalMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        start();
+    }
+
+    public Gmail get() {
+        Gmail client = gmail;
+        if (client != null) {
+            return client;
+        }
+        start();
+        throw new IllegalStateException("Gmail client is not ready: " + state);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    // Starts loading unless it is already running or done, or the last attempt is too recent to retry
+    public synchronized void start() {
+        if (state == State.LOADING || state == State.READY) {
+            return;
+        }
+        if (state != State.NOT_STARTED && System.nanoTime() - retryAtNanos < 0) {
+            return;
+        }
+        state = State.LOADING;
+        Thread.ofPlatform().daemon().name("gmail-credentials").start(this::load);
+    }
+
+    private void load() {
+        try {
+            NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+            GoogleAuthorizationCodeFlow flow = flow(httpTransport);
+
+            Credential credential = flow.loadCredential(TOKEN_USER);
+            if (credential == null && interactiveAuthorization) {
+                LocalServerReceiver receiver = new LocalServerReceiver.Builder().setPort(receiverPort).build();
+                credential = new AuthorizationCodeInstalledApp(flow, receiver).authorize(TOKEN_USER);
+            }
+            if (credential == null) {
+                error = "No stored token in " + tokensDirectory;
+                finish(State.NEEDS_AUTHORIZATION);
+                return;
+            }
+
+            gmail = new Gmail.Builder(httpTransport, JSON_FACTORY, credential)
+                    .setApplicationName(APPLICATION_NAME)
+                    .build();
+            error = null;
+            state = State.READY;
+        } catch (Exception e) {
+            e.printStackTrace();
+            error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            finish(State.FAILED);
+        }
+    }
+
+    private synchronized void finish(State failedState) {
+        retryAtNanos = System.nanoTime() + retryIntervalNanos;
+        state = failedState;
+    }
+
+    private GoogleAuthorizationCodeFlow flow(NetHttpTransport httpTransport) throws Exception {
+        InputStream in = GmailClientProvider.class.getResourceAsStream(credentialsPath);
+        if (in == null) {
+            throw new FileNotFoundException("Credentials file not found: " + credentialsPath);
+        }
+        try (InputStreamReader reader = new InputStreamReader(in)) {
+            GoogleClientSecrets clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, reader);
+            return new GoogleAuthorizationCodeFlow.Builder(httpTransport, JSON_FACTORY, clientSecrets, SCOPES)
+                    .setDataStoreFactory(new FileDataStoreFactory(new File(tokensDirectory)))
+                    .setAccessType("offline")
+                    .build();
+        }
+    }
+
+}
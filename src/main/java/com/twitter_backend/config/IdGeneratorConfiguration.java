@@ -0,0 +1,20 @@
+package com.twitter_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.twitter_backend.models.idGenerators.SnowflakeIdFactory;
+
+@Configuration
+public class IdGeneratorConfiguration {
+
+    // Every instance writing to the same database needs its own node id, or two of them can hand out the
+    // same id in the same millisecond. There is deliberately no default: an instance started without one fails
+    // instead of sharing node 0 with another.
+    @Bean
+    public SnowflakeIdFactory snowflakeIdFactory(@Value("${app.snowflake.node-id}") int nodeId) {
+        return new SnowflakeIdFactory(nodeId);
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.twitter_backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+@Configuration
+public class JacksonConfiguration {
+
+    // Spring Boot registers Module beans with the shared ObjectMapper. Blackbird replaces reflective
+    // getter calls and constructor calls with generated lambdas.
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.twitter_backend.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Reported as the "mail" component of /actuator/health. Only READY is UP; every other state is UNKNOWN with
+// the provider state and error as details. The outbox keeps queueing mail until Gmail is usable, so a missing
+// token or a failed load must not turn the aggregate health into a 503 and get the instance restarted.
+// Watch mail.outbox.pending, or this component's state detail, to alert on it.
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "gmail", matchIfMissing = true)
+public class MailHealthIndicator implements HealthIndicator {
+
+    private final GmailClientProvider gmailClientProvider;
+
+    @Autowired
+    public MailHealthIndicator(GmailClientProvider gmailClientProvider) {
+        this.gmailClientProvider = gmailClientProvider;
+    }
+
+    @Override
+    public Health health() {
+        GmailClientProvider.State state = gmailClientProvider.getState();
+        Health.Builder builder;
+        switch (state) {
+            case READY:
+                builder = Health.up();
+                break;
+            default:
+                builder = Health.unknown();
+                if (gmailClientProvider.getError() != null) {
+                    builder.withDetail("error", gmailClientProvider.getError());
+                }
+        }
+        return builder.withDetail("state", state.name()).build();
+    }
+
+}
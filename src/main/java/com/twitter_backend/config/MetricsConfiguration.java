@@ -0,0 +1,19 @@
+package com.twitter_backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfiguration {
+
+    // Makes @Timed work on Spring beans. Timers get an exception tag with the thrown exception's
+    // simple name, e.g. UserDoesntExistException, or "none".
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+}
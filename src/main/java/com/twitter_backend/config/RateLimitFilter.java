@@ -0,0 +1,253 @@
+package com.twitter_backend.config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_backend.services.RateLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Throttles registration and verification code requests, which each cost a database write and a mail,
+// availability checks, which would otherwise let anyone test which emails are registered, and logins,
+// which would otherwise let anyone guess passwords as fast as BCrypt allows.
+// The client address is checked first and the username or email from the body second, so a single client
+// can't fill the per-user table. A batch registration also takes one permit per row from a per-address
+// row budget, so a batch can't register thousands of users for the price of one request.
+// Runs after the observation filter so rejections still show up in http.server.requests.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String BATCH_PATH = "/authenticate/register/batch";
+    private static final Set<String> LIMITED_POST_PATHS = Set.of(
+            "/authenticate/register",
+            BATCH_PATH,
+            "/authenticate/email/verification/code",
+            "/authenticate/login");
+    private static final Set<String> LIMITED_GET_PATHS = Set.of(
+            "/authenticate/availability");
+
+    private final RateLimiter addressLimiter;
+    private final RateLimiter userLimiter;
+    private final RateLimiter batchRowLimiter;
+    private final int batchRowBurst;
+    private final ObjectMapper objectMapper;
+    private final Counter addressRejections;
+    private final Counter userRejections;
+    private final Counter batchRejections;
+
+    @Autowired
+    public RateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.address.per-minute:30}") int addressPerMinute,
+            @Value("${app.rate-limit.address.burst:10}") int addressBurst,
+            @Value("${app.rate-limit.user.per-minute:3}") int userPerMinute,
+            @Value("${app.rate-limit.user.burst:3}") int userBurst,
+            @Value("${app.rate-limit.batch.rows-per-minute:10000}") int batchRowsPerMinute,
+            @Value("${app.rate-limit.batch.row-burst:10000}") int batchRowBurst,
+            @Value("${app.rate-limit.max-keys:100000}") int maxKeys) {
+        this(objectMapper, meterRegistry,
+                new RateLimiter(addressPerMinute, addressBurst, maxKeys),
+                new RateLimiter(userPerMinute, userBurst, maxKeys),
+                new RateLimiter(batchRowsPerMinute, batchRowBurst, maxKeys), batchRowBurst);
+    }
+
+    RateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry, RateLimiter addressLimiter,
+            RateLimiter userLimiter, RateLimiter batchRowLimiter, int batchRowBurst) {
+        this.objectMapper = objectMapper;
+        this.addressLimiter = addressLimiter;
+        this.userLimiter = userLimiter;
+        this.batchRowLimiter = batchRowLimiter;
+        this.batchRowBurst = batchRowBurst;
+        this.addressRejections = Counter.builder("http.server.requests.throttled")
+                .description("Requests rejected by the rate limiter")
+                .tag("key", "address")
+                .register(meterRegistry);
+        this.userRejections = Counter.builder("http.server.requests.throttled")
+                .description("Requests rejected by the rate limiter")
+                .tag("key", "user")
+                .register(meterRegistry);
+        this.batchRejections = Counter.builder("http.server.requests.throttled")
+                .description("Requests rejected by the rate limiter")
+                .tag("key", "batch-rows")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = pathOf(request);
+        return switch (request.getMethod()) {
+            case "POST" -> !LIMITED_POST_PATHS.contains(path);
+            case "GET" -> !LIMITED_GET_PATHS.contains(path);
+            default -> true;
+        };
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long waitNanos = addressLimiter.tryAcquire(request.getRemoteAddr());
+        if (waitNanos > 0) {
+            addressRejections.increment();
+            reject(response, waitNanos);
+            return;
+        }
+
+        CachedBodyRequest cached = new CachedBodyRequest(request);
+        if (BATCH_PATH.equals(pathOf(request))) {
+            // Larger batches than a full bucket are refused by the controller anyway, 413
+            int rows = Math.clamp(rowCount(cached.body), 1, batchRowBurst);
+            waitNanos = batchRowLimiter.tryAcquire(request.getRemoteAddr(), rows);
+            if (waitNanos > 0) {
+                batchRejections.increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+
+        String user = userKey(cached.body);
+        if (user != null) {
+            waitNanos = userLimiter.tryAcquire(user);
+            if (waitNanos > 0) {
+                userRejections.increment();
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(cached, response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        addressLimiter.evictIdle();
+        userLimiter.evictIdle();
+        batchRowLimiter.evictIdle();
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // Entries in a batch body, 1 for anything that isn't a JSON array
+    private int rowCount(byte[] body) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            return json != null && json.isArray() ? json.size() : 1;
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    // Username for logins and verification codes, email for registrations. Unparseable bodies are left to
+    // the controller.
+    private String userKey(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            if (json == null) {
+                return null;
+            }
+            JsonNode key = json.hasNonNull("username") ? json.get("username") : json.get("email");
+            return key != null && key.isTextual() ? key.asText().toLowerCase() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Too many requests, try again later");
+    }
+
+    // The body is read here to find the user and then replayed to the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The body is already in memory, so it is all available at once
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null
+                    ? Charset.forName(getCharacterEncoding())
+                    : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+    }
+
+}
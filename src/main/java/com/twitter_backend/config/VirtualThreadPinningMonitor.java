@@ -0,0 +1,102 @@
+package com.twitter_backend.config;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+// Listens for the JFR jdk.VirtualThreadPinned event. It fires when a virtual thread blocks while it can't
+// leave its carrier, usually inside a synchronized block (JDBC drivers, the HttpURLConnection under the Gmail
+// client). Every pinning is timed in jvm.threads.virtual.pinned, tagged with the first frame from our code or
+// the top frame, and the first one per frame is reported with its stack trace.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.twitter_backend.";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Set<String> reportedFrames = ConcurrentHashMap.newKeySet();
+    private RecordingStream recordingStream;
+
+    @Autowired
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.pinning-threshold-ms:20}") long thresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String frame = describeFrame(event.getStackTrace());
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier")
+                .tag("frame", frame)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        if (reportedFrames.add(frame)) {
+            IllegalStateException pinned = new IllegalStateException(
+                    "Virtual thread pinned for " + event.getDuration().toMillis() + " ms at " + frame);
+            pinned.setStackTrace(stackTraceOf(event.getStackTrace()));
+            pinned.printStackTrace();
+        }
+    }
+
+    // The recorded frames as a Throwable's, so the report looks like any other stack trace
+    private static StackTraceElement[] stackTraceOf(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return new StackTraceElement[0];
+        }
+        return stackTrace.getFrames().stream()
+                .map(frame -> new StackTraceElement(frame.getMethod().getType().getName(),
+                        frame.getMethod().getName(), null, frame.getLineNumber()))
+                .toArray(StackTraceElement[]::new);
+    }
+
+    private String describeFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return name(frame);
+            }
+        }
+        return name(stackTrace.getFrames().get(0));
+    }
+
+    private String name(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+}
@@ -1,24 +1,39 @@
 package com.twitter_backend.controllers;
 
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.twitter_backend.exceptions.BatchTooLargeException;
 import com.twitter_backend.exceptions.EmailAlreadyExistsException;
 import com.twitter_backend.exceptions.EmailFailedToSendException;
+import com.twitter_backend.exceptions.IncorrectPasswordException;
 import com.twitter_backend.exceptions.IncorrectVerificationCodeException;
+import com.twitter_backend.exceptions.InvalidUserUpdateException;
+import com.twitter_backend.exceptions.PasswordHashingBusyException;
+import com.twitter_backend.exceptions.TooManyVerificationAttemptsException;
 import com.twitter_backend.exceptions.UserDoesntExistException;
-import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.exceptions.UsernameAllocationFailedException;
+import com.twitter_backend.models.BatchRegistrationResult;
 import com.twitter_backend.models.RegistrationObject;
+import com.twitter_backend.models.UserSummary;
+import com.twitter_backend.services.AvailabilityService;
+import com.twitter_backend.services.BatchRegistrationService;
 import com.twitter_backend.services.UserService;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 
 @RestController
@@ -27,10 +42,15 @@ import org.springframework.web.bind.annotation.PutMapping;
 public class AuthenticationController {
 
     private final UserService userService;
+    private final AvailabilityService availabilityService;
+    private final BatchRegistrationService batchRegistrationService;
 
     @Autowired
-    public AuthenticationController(UserService userService) {
+    public AuthenticationController(UserService userService, AvailabilityService availabilityService,
+            BatchRegistrationService batchRegistrationService) {
         this.userService = userService;
+        this.availabilityService = availabilityService;
+        this.batchRegistrationService = batchRegistrationService;
     }
 
     @ExceptionHandler({ EmailAlreadyExistsException.class })
@@ -54,23 +74,80 @@ public class AuthenticationController {
         return new ResponseEntity<>("Incorrect verificationcode", HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler({ TooManyVerificationAttemptsException.class })
+    public ResponseEntity<String> handleTooManyVerificationAttempts() {
+        return new ResponseEntity<>("Too many wrong verificationcodes, request a new one",
+                HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler({ UsernameAllocationFailedException.class })
+    public ResponseEntity<String> handleUsernameAllocationFailed() {
+        return new ResponseEntity<>("Couldn't create a username, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler({ InvalidUserUpdateException.class })
+    public ResponseEntity<String> handleInvalidUserUpdate(InvalidUserUpdateException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({ PasswordHashingBusyException.class })
+    public ResponseEntity<String> handlePasswordHashingBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many requests, try again later");
+    }
+
+    @ExceptionHandler({ BatchTooLargeException.class })
+    public ResponseEntity<String> handleBatchTooLarge(BatchTooLargeException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @ExceptionHandler({ IncorrectPasswordException.class })
+    public ResponseEntity<String> handleIncorrectPassword() {
+        return new ResponseEntity<>("The username or password is incorrect", HttpStatus.UNAUTHORIZED);
+    }
+
+    // e.g. /availability?email=dude@example.com&username=TheDude, only the given fields are answered
+    @GetMapping("/availability")
+    public Map<String, Boolean> checkAvailability(@RequestParam(required = false) String email,
+            @RequestParam(required = false) String username) {
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (email != null) {
+            availability.put("email", availabilityService.isEmailAvailable(email));
+        }
+        if (username != null) {
+            availability.put("username", availabilityService.isUsernameAvailable(username));
+        }
+        return availability;
+    }
+
     @PostMapping("/register")
-    public ApplicationUser registerUser(@RequestBody RegistrationObject registrationObject) {
-        return userService.registerUser(registrationObject);
+    public UserSummary registerUser(@RequestBody RegistrationObject registrationObject) {
+        return UserSummary.from(userService.registerUser(registrationObject));
+    }
+
+    // Partner imports, one result per entry in request order
+    @PostMapping("/register/batch")
+    public BatchRegistrationResult registerUsers(@RequestBody List<RegistrationObject> registrationObjects) {
+        return batchRegistrationService.registerAll(registrationObjects);
     }
 
     @PutMapping("/update/phoneNumber")
-    public ApplicationUser updatePhoneNumber(@RequestBody LinkedHashMap<String, String> body) {
+    public UserSummary updatePhoneNumber(@RequestBody LinkedHashMap<String, String> body) {
 
         String username = body.get("username");
-        String phoneNumber = body.get("phoneNumber");
-
-        ApplicationUser user = userService.getUserByUsername(username);
+        Map<String, String> changes = new LinkedHashMap<>();
+        changes.put("phoneNumber", body.get("phoneNumber"));
 
-        user.setPhoneNumber(phoneNumber);
+        return userService.patchUser(username, changes);
 
-        return userService.updateUser(user);
+    }
 
+    // Changes only the fields present in the body, e.g. {"username": "...", "lastName": "..."}
+    @PatchMapping("/update")
+    public UserSummary patchUser(@RequestBody LinkedHashMap<String, String> body) {
+        String username = body.remove("username");
+        return userService.patchUser(username, body);
     }
 
     @PostMapping("/email/verification/code")
@@ -87,14 +164,14 @@ public class AuthenticationController {
     }
 
     @PostMapping("email/verification/verify")
-    public ApplicationUser verifyEmail(@RequestBody LinkedHashMap<String, String> body) throws Exception {
+    public UserSummary verifyEmail(@RequestBody LinkedHashMap<String, String> body) throws Exception {
         Long code = Long.parseLong(body.get("verificationCode"));
         String username = body.get("username");
         return userService.verifyEmail(username, code);
     }
 
     @PutMapping("/update/password")
-    public ApplicationUser updatePassword(@RequestBody LinkedHashMap<String, String> body) {
+    public UserSummary updatePassword(@RequestBody LinkedHashMap<String, String> body) {
         String username = body.get("username");
         String password = body.get("password");
 
@@ -102,4 +179,9 @@ public class AuthenticationController {
 
     }
 
+    @PostMapping("/login")
+    public UserSummary login(@RequestBody LinkedHashMap<String, String> body) {
+        return userService.login(body.get("username"), body.get("password"));
+    }
+
 }
@@ -0,0 +1,73 @@
+package com.twitter_backend.controllers;
+
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.twitter_backend.models.UserExportFormat;
+import com.twitter_backend.services.UserExportService;
+
+// Bulk exports for analytics and compliance. The export includes emails and phone numbers, so it is off
+// unless app.export.enabled is set, and should only be reachable from the internal network.
+@RestController
+@RequestMapping("/export")
+@ConditionalOnProperty(name = "app.export.enabled", havingValue = "true")
+public class ExportController {
+
+    private final UserExportService userExportService;
+
+    @Autowired
+    public ExportController(UserExportService userExportService) {
+        this.userExportService = userExportService;
+    }
+
+    // Rows are written while the query runs, gzipped when the client accepts it. from and to are
+    // ISO-8601 instants bounding the creation time, e.g. ?format=csv&from=2025-01-01T00:00:00Z
+    @GetMapping("/users")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        UserExportFormat exportFormat = UserExportFormat.fromParameter(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                userExportService.export(exportFormat, from, to, compressed);
+                compressed.finish();
+            } else {
+                userExportService.export(exportFormat, from, to, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + exportFormat.getExtension()).build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+}
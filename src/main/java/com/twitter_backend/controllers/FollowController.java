@@ -0,0 +1,77 @@
+package com.twitter_backend.controllers;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.twitter_backend.exceptions.InvalidFollowException;
+import com.twitter_backend.exceptions.UserDoesntExistException;
+import com.twitter_backend.models.FollowCounts;
+import com.twitter_backend.services.FollowService;
+
+@RestController
+@RequestMapping("/follow")
+@CrossOrigin("*")
+public class FollowController {
+
+    private final FollowService followService;
+
+    @Autowired
+    public FollowController(FollowService followService) {
+        this.followService = followService;
+    }
+
+    @ExceptionHandler({ InvalidFollowException.class })
+    public ResponseEntity<String> handleInvalidFollow(InvalidFollowException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({ UserDoesntExistException.class })
+    public ResponseEntity<String> handleUserDoesntExist() {
+        return new ResponseEntity<String>("The user doesn't exist", HttpStatus.NOT_FOUND);
+    }
+
+    // Body: {"follower": ..., "followee": ...}. Following twice is not an error.
+    @PostMapping
+    public ResponseEntity<Void> follow(@RequestBody LinkedHashMap<String, String> body) {
+        followService.follow(body.get("follower"), body.get("followee"));
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> unfollow(@RequestParam String follower, @RequestParam String followee) {
+        followService.unfollow(follower, followee);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{follower}/follows/{followee}")
+    public boolean isFollowing(@PathVariable String follower, @PathVariable String followee) {
+        return followService.isFollowing(follower, followee);
+    }
+
+    @GetMapping("/{username}/counts")
+    public FollowCounts getCounts(@PathVariable String username) {
+        return followService.getCounts(username);
+    }
+
+    @GetMapping("/{username}/mutual")
+    public List<UUID> getMutualFollows(@PathVariable String username,
+            @RequestParam(defaultValue = "100") int limit) {
+        return followService.getMutualFollows(username, limit);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.twitter_backend.controllers;
+
+import java.util.LinkedHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.twitter_backend.exceptions.InvalidCursorException;
+import com.twitter_backend.exceptions.InvalidTweetException;
+import com.twitter_backend.exceptions.TweetDoesntExistException;
+import com.twitter_backend.exceptions.UserDoesntExistException;
+import com.twitter_backend.models.CursorPage;
+import com.twitter_backend.models.EngagementCounts;
+import com.twitter_backend.models.EngagementType;
+import com.twitter_backend.models.TweetView;
+import com.twitter_backend.services.EngagementCounterService;
+import com.twitter_backend.services.TweetService;
+
+@RestController
+@RequestMapping("/tweet")
+@CrossOrigin("*")
+public class TweetController {
+
+    private final TweetService tweetService;
+    private final EngagementCounterService engagementCounterService;
+
+    @Autowired
+    public TweetController(TweetService tweetService, EngagementCounterService engagementCounterService) {
+        this.tweetService = tweetService;
+        this.engagementCounterService = engagementCounterService;
+    }
+
+    @ExceptionHandler({ InvalidTweetException.class })
+    public ResponseEntity<String> handleInvalidTweet(InvalidTweetException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({ InvalidCursorException.class })
+    public ResponseEntity<String> handleInvalidCursor(InvalidCursorException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({ TweetDoesntExistException.class })
+    public ResponseEntity<String> handleTweetDoesntExist(TweetDoesntExistException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler({ UserDoesntExistException.class })
+    public ResponseEntity<String> handleUserDoesntExist() {
+        return new ResponseEntity<String>("The user doesn't exist", HttpStatus.NOT_FOUND);
+    }
+
+    @PostMapping
+    public ResponseEntity<TweetView> postTweet(@RequestBody LinkedHashMap<String, String> body) {
+        TweetView tweet = TweetView.from(tweetService.postTweet(body.get("username"), body.get("content")));
+        return new ResponseEntity<>(tweet, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{tweetId}")
+    public TweetView getTweet(@PathVariable long tweetId) {
+        return TweetView.from(tweetService.getTweet(tweetId));
+    }
+
+    // Engagements are counted in memory and written behind, hence 202
+    @PostMapping("/{tweetId}/like")
+    public ResponseEntity<Void> like(@PathVariable long tweetId) {
+        engagementCounterService.record(tweetId, EngagementType.LIKE);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/{tweetId}/retweet")
+    public ResponseEntity<Void> retweet(@PathVariable long tweetId) {
+        engagementCounterService.record(tweetId, EngagementType.RETWEET);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/{tweetId}/view")
+    public ResponseEntity<Void> view(@PathVariable long tweetId) {
+        engagementCounterService.record(tweetId, EngagementType.VIEW);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/{tweetId}/counts")
+    public EngagementCounts getCounts(@PathVariable long tweetId) {
+        return engagementCounterService.getCounts(tweetId);
+    }
+
+    // Pass the previous page's nextCursor as ?cursor= for the next page
+    @GetMapping("/timeline/{username}")
+    public CursorPage<TweetView> getHomeTimeline(@PathVariable String username,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int limit) {
+        return tweetService.getHomeTimeline(username, cursor, limit).map(TweetView::from);
+    }
+
+    @GetMapping("/user/{username}")
+    public CursorPage<TweetView> getTweetsByUser(@PathVariable String username,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") int limit) {
+        return tweetService.getTweetsByUser(username, cursor, limit).map(TweetView::from);
+    }
+
+}
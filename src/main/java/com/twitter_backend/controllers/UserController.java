@@ -0,0 +1,86 @@
+package com.twitter_backend.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.twitter_backend.exceptions.InvalidCursorException;
+import com.twitter_backend.exceptions.UserDoesntExistException;
+import com.twitter_backend.models.CursorPage;
+import com.twitter_backend.models.UserProfile;
+import com.twitter_backend.services.UserService;
+
+@RestController
+@RequestMapping("/user")
+@CrossOrigin("*")
+public class UserController {
+
+    private final UserService userService;
+
+    @Autowired
+    public UserController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @ExceptionHandler({ InvalidCursorException.class })
+    public ResponseEntity<String> handleInvalidCursor(InvalidCursorException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler({ UserDoesntExistException.class })
+    public ResponseEntity<String> handleUserDoesntExist() {
+        return new ResponseEntity<String>("The user doesn't exist", HttpStatus.NOT_FOUND);
+    }
+
+    // Ordered by username. Pass the previous page's nextCursor as ?cursor= for the next page.
+    @GetMapping
+    public CursorPage<UserProfile> listUsers(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return userService.listUsers(cursor, limit);
+    }
+
+    // The ETag is a hash of the profile's fields, so a matching If-None-Match gets a 304 before anything
+    // is serialized. no-cache makes clients revalidate every time instead of trusting a stale copy.
+    @GetMapping("/{username}")
+    public ResponseEntity<UserProfile> getProfile(@PathVariable String username, WebRequest request) {
+        UserProfile profile = userService.getProfile(username);
+        String etag = etagOf(profile);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(profile);
+    }
+
+    static String etagOf(UserProfile profile) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object field : new Object[] { profile.userId(), profile.username(), profile.firstName(),
+                    profile.lastName() }) {
+                digest.update(Objects.toString(field, "").getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(int maxRows) {
+        super("A batch may hold at most " + maxRows + " registrations");
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class IncorrectPasswordException extends RuntimeException {
+
+    public IncorrectPasswordException() {
+        super("The username or password is incorrect");
+    }
+
+}
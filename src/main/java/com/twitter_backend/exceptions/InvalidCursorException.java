@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException() {
+        super("The cursor is not valid for this listing");
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class InvalidFollowException extends RuntimeException {
+
+    public InvalidFollowException() {
+        super("A user can't follow themselves");
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class InvalidTweetException extends RuntimeException {
+
+    public InvalidTweetException() {
+        super("A tweet needs between 1 and 280 characters");
+    }
+
+}
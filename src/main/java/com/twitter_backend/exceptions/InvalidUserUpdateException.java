@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class InvalidUserUpdateException extends RuntimeException {
+
+    public InvalidUserUpdateException(String field) {
+        super("The field " + field + " can't be updated");
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException() {
+        super("Too many passwords are being hashed right now");
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class TooManyVerificationAttemptsException extends RuntimeException {
+
+    public TooManyVerificationAttemptsException() {
+        super("Too many wrong verificationcodes, request a new one");
+    }
+
+}
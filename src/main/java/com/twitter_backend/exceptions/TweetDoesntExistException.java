@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class TweetDoesntExistException extends RuntimeException {
+
+    public TweetDoesntExistException() {
+        super("The tweet doesn't exist");
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.twitter_backend.exceptions;
+
+public class UsernameAllocationFailedException extends RuntimeException {
+
+    public UsernameAllocationFailedException() {
+        super("Couldn't find a free username");
+    }
+
+}
@@ -1,30 +1,49 @@
 package com.twitter_backend.models;
 
 import java.sql.Date;
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.type.SqlTypes;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.twitter_backend.models.idGenerators.UuidV7;
+import com.twitter_backend.services.RoleRegistry;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
 
+// Cached in the second-level cache by id, and by username through the natural-id cache.
+// Regions and their size limits are in hibernate-cache.conf.
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = { @Index(name = "idx_users_created_at", columnList = "created_at") })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-natural-id")
+@DynamicUpdate
 public class ApplicationUser {
 
+    // Time-ordered so new rows append to the end of the clustered index instead of splitting pages
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    @Column(name = "user_id")
+    @UuidV7
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "user_id", length = 16, columnDefinition = "BINARY(16)")
     private UUID userId;
 
     @Column(name = "first_name")
@@ -41,25 +60,35 @@ public class ApplicationUser {
     @Column
     private Date dateOfBirth;
 
+    @NaturalId
     @Column(unique = true)
     private String username;
 
     @JsonIgnore
     private String password;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Source of truth for writes. Reads use authorityMask, so loading a user doesn't join the junction table.
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "user_role_junction", joinColumns = { @JoinColumn(name = "user_id") }, inverseJoinColumns = {
             @JoinColumn(name = "role_id") })
-    private Set<Role> authorities;
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
+    @JsonIgnore
+    private Set<Role> roles;
+
+    // Bit n is set when the user has the role with role_id n
+    @Column(name = "authority_mask", nullable = false)
+    @JsonIgnore
+    private long authorityMask;
 
     private boolean enabled;
 
-    @Column(nullable = true)
-    @JsonIgnore
-    private Long verification;
+    // Rows from before this column existed have none, they only show up in exports without a time window
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
 
     public ApplicationUser() {
-        this.authorities = new HashSet<>();
+        this.roles = new HashSet<>();
         this.enabled = false;
     }
 
@@ -128,11 +157,19 @@ public class ApplicationUser {
     }
 
     public Set<Role> getAuthorities() {
-        return authorities;
+        if (Hibernate.isInitialized(roles)) {
+            return roles;
+        }
+        return RoleRegistry.rolesOf(authorityMask);
     }
 
     public void setAuthorities(Set<Role> authorities) {
-        this.authorities = authorities;
+        this.roles = new HashSet<>(authorities);
+        this.authorityMask = RoleRegistry.maskOf(authorities);
+    }
+
+    public long getAuthorityMask() {
+        return authorityMask;
     }
 
     public boolean isEnabled() {
@@ -143,20 +180,19 @@ public class ApplicationUser {
         this.enabled = enabled;
     }
 
-    public Long getVerification() {
-        return verification;
+    public Instant getCreatedAt() {
+        return createdAt;
     }
 
-    public void setVerification(Long verification) {
-        this.verification = verification;
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
     }
 
     @Override
     public String toString() {
         return "ApplicationUser [userId=" + userId + ", firstName=" + firstName + ", lastName=" + lastName + ", email="
                 + email + ", phoneNumber=" + phoneNumber + ", dateOfBirth=" + dateOfBirth + ", username=" + username
-                + ", password=" + password + ", authorities=" + authorities + ", enabled=" + enabled + ", verification="
-                + verification + "]";
+                + ", password=" + password + ", authorityMask=" + authorityMask + ", enabled=" + enabled + "]";
     }
 
 }
\ No newline at end of file
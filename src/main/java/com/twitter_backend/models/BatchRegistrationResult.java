@@ -0,0 +1,7 @@
+package com.twitter_backend.models;
+
+import java.util.List;
+
+public record BatchRegistrationResult(List<RegistrationRowResult> rows, int registered, int rejected,
+        long elapsedMillis, double rowsPerSecond) {
+}
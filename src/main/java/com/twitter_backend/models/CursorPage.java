@@ -0,0 +1,23 @@
+package com.twitter_backend.models;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset-paginated listing. nextCursor is null on the last page, otherwise it is passed back
+// as ?cursor= to get the page after this one.
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    // fetched holds up to limit + 1 items, the extra one only tells that there is a next page
+    public static <T> CursorPage<T> of(List<T> fetched, int limit, Function<T, String> cursorOf) {
+        if (fetched.size() <= limit) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new CursorPage<>(List.copyOf(items), cursorOf.apply(items.get(limit - 1)));
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.twitter_backend.models;
+
+public record EngagementCounts(long likes, long retweets, long views) {
+
+    public static final EngagementCounts ZERO = new EngagementCounts(0, 0, 0);
+
+    public EngagementCounts plus(long[] deltas) {
+        return new EngagementCounts(likes + deltas[0], retweets + deltas[1], views + deltas[2]);
+    }
+}
@@ -0,0 +1,8 @@
+package com.twitter_backend.models;
+
+// The order is the column order of tweet_counters
+public enum EngagementType {
+    LIKE,
+    RETWEET,
+    VIEW
+}
@@ -0,0 +1,82 @@
+package com.twitter_backend.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+// One row per edge, the source of truth for FollowGraph. The primary key serves "who does X follow" in
+// follower order, idx_follows_followee serves "who follows X" in followee order.
+@Entity
+@Table(name = "follows", indexes = {
+        @Index(name = "idx_follows_followee", columnList = "followee_id, follower_id") })
+@IdClass(FollowId.class)
+public class Follow implements Persistable<FollowId> {
+
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "follower_id", length = 16, columnDefinition = "BINARY(16)")
+    private UUID followerId;
+
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "followee_id", length = 16, columnDefinition = "BINARY(16)")
+    private UUID followeeId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    public Follow() {
+    }
+
+    public Follow(UUID followerId, UUID followeeId) {
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+    }
+
+    public UUID getFollowerId() {
+        return followerId;
+    }
+
+    public UUID getFolloweeId() {
+        return followeeId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public FollowId getId() {
+        return new FollowId(followerId, followeeId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+}
@@ -0,0 +1,4 @@
+package com.twitter_backend.models;
+
+public record FollowCounts(long followers, long following) {
+}
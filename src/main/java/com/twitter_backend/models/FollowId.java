@@ -0,0 +1,44 @@
+package com.twitter_backend.models;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+public class FollowId implements Serializable {
+
+    private UUID followerId;
+    private UUID followeeId;
+
+    public FollowId() {
+    }
+
+    public FollowId(UUID followerId, UUID followeeId) {
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+    }
+
+    public UUID getFollowerId() {
+        return followerId;
+    }
+
+    public UUID getFolloweeId() {
+        return followeeId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FollowId other)) {
+            return false;
+        }
+        return Objects.equals(followerId, other.followerId) && Objects.equals(followeeId, other.followeeId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(followerId, followeeId);
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.twitter_backend.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// A tombstone per unfollow, written in the same transaction as the delete from follows. Other instances read
+// them to catch their FollowGraph up, since a deleted edge leaves nothing behind in follows. Rows older than
+// FollowGraph.REMOVAL_RETENTION_MS are deleted.
+@Entity
+@Table(name = "follow_removals", indexes = { @Index(name = "idx_follow_removals_removed", columnList = "removed_at") })
+public class FollowRemoval {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "removal_id")
+    private Long removalId;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "follower_id", length = 16, columnDefinition = "BINARY(16)", nullable = false)
+    private UUID followerId;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "followee_id", length = 16, columnDefinition = "BINARY(16)", nullable = false)
+    private UUID followeeId;
+
+    @CreationTimestamp
+    @Column(name = "removed_at", nullable = false, updatable = false)
+    private Instant removedAt;
+
+    public FollowRemoval() {
+    }
+
+    public FollowRemoval(UUID followerId, UUID followeeId) {
+        this.followerId = followerId;
+        this.followeeId = followeeId;
+    }
+
+    public Long getRemovalId() {
+        return removalId;
+    }
+
+    public UUID getFollowerId() {
+        return followerId;
+    }
+
+    public UUID getFolloweeId() {
+        return followeeId;
+    }
+
+    public Instant getRemovedAt() {
+        return removedAt;
+    }
+
+}
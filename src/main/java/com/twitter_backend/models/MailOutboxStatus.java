@@ -0,0 +1,9 @@
+package com.twitter_backend.models;
+
+public enum MailOutboxStatus {
+    PENDING,
+    // Claimed by a dispatcher; next_attempt_at is when the claim lapses if that dispatcher dies
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,53 @@
+package com.twitter_backend.models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.twitter_backend.exceptions.InvalidCursorException;
+
+// Cursors are the last sort key of a page, prefixed with the listing they belong to and Base64url
+// encoded. Clients should treat them as opaque; a cursor from another listing is rejected.
+public final class PageCursor {
+
+    private PageCursor() {
+    }
+
+    public static String encode(String listing, String key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((listing + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String encode(String listing, long key) {
+        return encode(listing, Long.toString(key));
+    }
+
+    // null for the first page
+    public static String decode(String listing, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+        if (!decoded.startsWith(listing + ":")) {
+            throw new InvalidCursorException();
+        }
+        return decoded.substring(listing.length() + 1);
+    }
+
+    public static Long decodeLong(String listing, String cursor) {
+        String key = decode(listing, cursor);
+        if (key == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.twitter_backend.models;
+
+import java.util.UUID;
+
+// Outcome of one entry of a batch registration, index is its position in the request
+public record RegistrationRowResult(int index, RegistrationRowStatus status, UUID userId, String username,
+        String error) {
+}
@@ -0,0 +1,8 @@
+package com.twitter_backend.models;
+
+public enum RegistrationRowStatus {
+    REGISTERED,
+    EMAIL_TAKEN,
+    INVALID,
+    FAILED
+}
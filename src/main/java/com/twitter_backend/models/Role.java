@@ -1,12 +1,21 @@
 package com.twitter_backend.models;
 
 import jakarta.persistence.Column;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.twitter_backend.services.RoleChangeListener;
+
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "roles")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
+@EntityListeners(RoleChangeListener.class)
 public class Role {
 
     @Id
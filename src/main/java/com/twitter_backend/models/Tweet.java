@@ -0,0 +1,97 @@
+package com.twitter_backend.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import com.twitter_backend.models.idGenerators.SnowflakeIdFactory;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+// Keyed by a Snowflake id assigned before save, so the id alone gives creation order and time. Persistable
+// tells Spring Data the entity is new without a select, since an assigned id would otherwise mean merge.
+@Entity
+@Table(name = "tweets", indexes = { @Index(name = "idx_tweets_author", columnList = "author_id, tweet_id") })
+public class Tweet implements Persistable<Long> {
+
+    public static final int MAX_LENGTH = 280;
+
+    @Id
+    @Column(name = "tweet_id")
+    private Long tweetId;
+
+    // The author's user_id. Kept as a plain column so loading tweets never loads users.
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "author_id", length = 16, columnDefinition = "BINARY(16)", nullable = false)
+    private UUID authorId;
+
+    @Column(length = MAX_LENGTH, nullable = false)
+    private String content;
+
+    @Transient
+    private boolean isNew = true;
+
+    public Tweet() {
+    }
+
+    public Tweet(Long tweetId, UUID authorId, String content) {
+        this.tweetId = tweetId;
+        this.authorId = authorId;
+        this.content = content;
+    }
+
+    public Long getTweetId() {
+        return tweetId;
+    }
+
+    public void setTweetId(Long tweetId) {
+        this.tweetId = tweetId;
+    }
+
+    public UUID getAuthorId() {
+        return authorId;
+    }
+
+    public void setAuthorId(UUID authorId) {
+        this.authorId = authorId;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Instant getCreatedAt() {
+        return SnowflakeIdFactory.timestampOf(tweetId);
+    }
+
+    @Override
+    public Long getId() {
+        return tweetId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.twitter_backend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Persisted engagement totals, one row per tweet that has any. Only written by EngagementCounterService
+// with upserts that add to the columns, never through JPA; mapped so the table is part of the schema.
+@Entity
+@Table(name = "tweet_counters")
+public class TweetCounters {
+
+    @Id
+    @Column(name = "tweet_id")
+    private Long tweetId;
+
+    @Column(nullable = false)
+    private long likes;
+
+    @Column(nullable = false)
+    private long retweets;
+
+    @Column(nullable = false)
+    private long views;
+
+    public TweetCounters() {
+    }
+
+    public Long getTweetId() {
+        return tweetId;
+    }
+
+    public long getLikes() {
+        return likes;
+    }
+
+    public long getRetweets() {
+        return retweets;
+    }
+
+    public long getViews() {
+        return views;
+    }
+}
@@ -0,0 +1,16 @@
+package com.twitter_backend.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+// Ids go out as strings, JavaScript numbers lose precision above 2^53
+public record TweetView(@JsonFormat(shape = JsonFormat.Shape.STRING) long tweetId, UUID authorId,
+        String content, Instant createdAt) {
+
+    public static TweetView from(Tweet tweet) {
+        return new TweetView(tweet.getTweetId(), tweet.getAuthorId(), tweet.getContent(), tweet.getCreatedAt());
+    }
+
+}
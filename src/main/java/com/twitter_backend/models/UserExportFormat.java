@@ -0,0 +1,34 @@
+package com.twitter_backend.models;
+
+import java.util.Locale;
+
+public enum UserExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    UserExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // null when the parameter names no format
+    public static UserExportFormat fromParameter(String parameter) {
+        for (UserExportFormat format : values()) {
+            if (format.extension.equals(parameter.toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
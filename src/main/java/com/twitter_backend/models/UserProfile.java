@@ -0,0 +1,7 @@
+package com.twitter_backend.models;
+
+import java.util.UUID;
+
+// What anyone may see of a user, no email, phone number or date of birth
+public record UserProfile(UUID userId, String username, String firstName, String lastName) {
+}
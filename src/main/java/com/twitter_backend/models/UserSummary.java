@@ -0,0 +1,15 @@
+package com.twitter_backend.models;
+
+import java.sql.Date;
+import java.util.UUID;
+
+// Column-only view of a user, loaded without the entity or its roles
+public record UserSummary(UUID userId, String firstName, String lastName, String email, String phoneNumber,
+        Date dateOfBirth, String username, boolean enabled) {
+
+    public static UserSummary from(ApplicationUser user) {
+        return new UserSummary(user.getUserId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getPhoneNumber(), user.getDateOfBirth(), user.getUsername(), user.isEnabled());
+    }
+
+}
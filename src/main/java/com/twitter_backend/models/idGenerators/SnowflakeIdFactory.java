@@ -0,0 +1,61 @@
+package com.twitter_backend.models.idGenerators;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Snowflake-style 64 bit ids: a zero sign bit, 41 bits of millis since EPOCH (good until 2094), a 10 bit
+// node id and a 12 bit sequence. Ids sort by creation time, so tables keyed by them can be paged and
+// ordered by id alone. Like UuidV7Factory, millis and sequence share one AtomicLong: ids from one node are
+// strictly increasing without locking, a sequence that runs out within a millisecond carries into the
+// timestamp and a clock that steps back is ignored until it catches up.
+public class SnowflakeIdFactory {
+
+    // 2025-01-01T00:00:00Z
+    public static final long EPOCH = 1_735_689_600_000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeBits;
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    public SnowflakeIdFactory(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public long next() {
+        long timeAndSequence = nextTimeAndSequence(System.currentTimeMillis() - EPOCH);
+        long millis = timeAndSequence >>> SEQUENCE_BITS;
+        return millis << (NODE_BITS + SEQUENCE_BITS) | nodeBits | timeAndSequence & SEQUENCE_MASK;
+    }
+
+    long nextTimeAndSequence(long millisSinceEpoch) {
+        long fresh = millisSinceEpoch << SEQUENCE_BITS;
+        while (true) {
+            long previous = lastTimeAndSequence.get();
+            long next = fresh > previous ? fresh : previous + 1;
+            if (lastTimeAndSequence.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Smallest id that could be handed out at this instant, for range scans by time
+    public static long firstIdAt(Instant instant) {
+        return Math.max(0, instant.toEpochMilli() - EPOCH) << (NODE_BITS + SEQUENCE_BITS);
+    }
+
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH);
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+}
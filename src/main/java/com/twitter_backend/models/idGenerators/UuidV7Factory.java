@@ -0,0 +1,46 @@
+package com.twitter_backend.models.idGenerators;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// RFC 9562 version 7 UUIDs: 48 bit unix millis, then a 12 bit counter in rand_a, then 62 random bits.
+// The millis and counter share one AtomicLong, so ids from this JVM are strictly increasing without
+// locking. When the counter runs out within a millisecond it carries into the timestamp.
+public class UuidV7Factory {
+
+    private static final UuidV7Factory SHARED = new UuidV7Factory();
+
+    private static final int COUNTER_BITS = 12;
+    // A fresh millisecond starts the counter somewhere in its lower half so it can't be guessed
+    private static final int COUNTER_SEED_RANGE = 1 << (COUNTER_BITS - 1);
+
+    private final AtomicLong lastTimeAndCounter = new AtomicLong();
+
+    public static UuidV7Factory shared() {
+        return SHARED;
+    }
+
+    public UUID next() {
+        long timeAndCounter = nextTimeAndCounter(System.currentTimeMillis());
+        long millis = timeAndCounter >>> COUNTER_BITS;
+        long counter = timeAndCounter & ((1 << COUNTER_BITS) - 1);
+
+        long mostSignificant = (millis & 0xFFFF_FFFF_FFFFL) << 16 | 0x7000L | counter;
+        long leastSignificant = ThreadLocalRandom.current().nextLong() & 0x3FFF_FFFF_FFFF_FFFFL
+                | 0x8000_0000_0000_0000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    long nextTimeAndCounter(long nowMillis) {
+        long fresh = nowMillis << COUNTER_BITS | ThreadLocalRandom.current().nextInt(COUNTER_SEED_RANGE);
+        while (true) {
+            long previous = lastTimeAndCounter.get();
+            long next = (fresh >>> COUNTER_BITS) > (previous >>> COUNTER_BITS) ? fresh : previous + 1;
+            if (lastTimeAndCounter.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+}
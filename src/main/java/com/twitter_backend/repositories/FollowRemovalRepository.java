@@ -0,0 +1,12 @@
+package com.twitter_backend.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.twitter_backend.models.FollowRemoval;
+
+// Only written. FollowGraph reads and prunes follow_removals with plain SQL.
+@Repository
+public interface FollowRemovalRepository extends JpaRepository<FollowRemoval, Long> {
+
+}
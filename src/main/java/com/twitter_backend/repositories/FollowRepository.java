@@ -0,0 +1,39 @@
+package com.twitter_backend.repositories;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.twitter_backend.models.Follow;
+import com.twitter_backend.models.FollowId;
+
+// Only used directly for writes. Reads go to FollowGraph, these queries answer them until it has loaded.
+@Repository
+public interface FollowRepository extends JpaRepository<Follow, FollowId> {
+
+    boolean existsByFollowerIdAndFolloweeId(UUID followerId, UUID followeeId);
+
+    long countByFollowerId(UUID followerId);
+
+    long countByFolloweeId(UUID followeeId);
+
+    @Query("select f.followeeId from Follow f where f.followerId = :userId")
+    List<UUID> findFolloweeIds(@Param("userId") UUID userId);
+
+    @Query("select f.followeeId from Follow f where f.followerId = :userId and exists "
+            + "(select 1 from Follow back where back.followerId = f.followeeId and back.followeeId = :userId)")
+    List<UUID> findMutualFollows(@Param("userId") UUID userId, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Follow f where f.followerId = :followerId and f.followeeId = :followeeId")
+    int deleteEdge(@Param("followerId") UUID followerId, @Param("followeeId") UUID followeeId);
+
+}
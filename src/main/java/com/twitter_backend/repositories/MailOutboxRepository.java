@@ -0,0 +1,30 @@
+package com.twitter_backend.repositories;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import com.twitter_backend.models.MailOutboxMessage;
+import com.twitter_backend.models.MailOutboxStatus;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutboxMessage, Long> {
+    // SELECT ... FOR UPDATE SKIP LOCKED (a lock timeout of -2), so concurrent dispatchers take disjoint rows
+    // instead of waiting on each other. Dialects without SKIP LOCKED fall back to a plain FOR UPDATE.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<MailOutboxMessage> findByStatusInAndNextAttemptAtLessThanEqualOrderByMessageIdAsc(
+            Collection<MailOutboxStatus> statuses, Instant now, Pageable pageable);
+
+    long countByStatus(MailOutboxStatus status);
+
+}
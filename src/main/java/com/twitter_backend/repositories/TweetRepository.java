@@ -0,0 +1,22 @@
+package com.twitter_backend.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.twitter_backend.models.Tweet;
+
+@Repository
+public interface TweetRepository extends JpaRepository<Tweet, Long> {
+
+    // Newest first, older than beforeId. Served by idx_tweets_author.
+    List<Tweet> findByAuthorIdAndTweetIdLessThanOrderByTweetIdDesc(UUID authorId, long beforeId, Limit limit);
+
+    List<Tweet> findByAuthorIdInAndTweetIdLessThanOrderByTweetIdDesc(Collection<UUID> authorIds, long beforeId,
+            Limit limit);
+
+}
@@ -1,14 +1,44 @@
 package com.twitter_backend.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.UserProfile;
+import com.twitter_backend.models.UserSummary;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+// Declared queries get no transaction from SimpleJpaRepository, which would send them all to the primary.
+// Read-only here, so they go to a replica unless the caller pins them with ReplicaRoutingDataSource.onPrimary.
 @Repository
-public interface UserRepository extends JpaRepository<ApplicationUser, UUID> {
-    Optional<ApplicationUser> findByUsername(String username);
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<ApplicationUser, UUID>, UserRepositoryCustom {
+    Optional<UserSummary> findSummaryByUsername(String username);
+
+    Optional<UserProfile> findProfileByUsername(String username);
+
+    @Query("select u.password from ApplicationUser u where u.username = :username")
+    Optional<String> findPasswordByUsername(@Param("username") String username);
+
+    // Keyset page over the unique username index, cost doesn't grow with the page number
+    List<UserProfile> findProfilesByUsernameGreaterThanOrderByUsernameAsc(String after, Limit limit);
+
+    @Query("select u.username from ApplicationUser u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    boolean existsByEmail(String email);
+
+    @Query("select u.email from ApplicationUser u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    boolean existsByUsername(String username);
 
 }
@@ -0,0 +1,17 @@
+package com.twitter_backend.repositories;
+
+import java.util.Map;
+import java.util.Optional;
+
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.UserSummary;
+
+public interface UserRepositoryCustom {
+
+    // Resolved through the natural-id cache, a hot username doesn't reach the database
+    Optional<ApplicationUser> findByUsername(String username);
+
+    // Changes only the given attributes, returns the user as updated, empty when there is no such user
+    Optional<UserSummary> updateFieldsByUsername(String username, Map<String, Object> changes);
+
+}
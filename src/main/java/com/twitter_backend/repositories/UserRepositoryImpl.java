@@ -0,0 +1,61 @@
+package com.twitter_backend.repositories;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.UserSummary;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ApplicationUser> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(ApplicationUser.class)
+                .loadOptional(username);
+    }
+
+    // A single UPDATE of only the given attributes, without loading the user first. Hibernate invalidates the
+    // users and users-natural-id cache regions after a bulk statement. The summary is read in the same
+    // transaction, on the primary, so it can't come from a replica that hasn't seen the UPDATE.
+    @Override
+    @Transactional
+    public Optional<UserSummary> updateFieldsByUsername(String username, Map<String, Object> changes) {
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to update");
+        }
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<ApplicationUser> update = builder.createCriteriaUpdate(ApplicationUser.class);
+        Root<ApplicationUser> user = update.from(ApplicationUser.class);
+        changes.forEach(update::set);
+        update.where(builder.equal(user.get("username"), username));
+        if (entityManager.createQuery(update).executeUpdate() == 0) {
+            return Optional.empty();
+        }
+
+        return entityManager.createQuery("select new com.twitter_backend.models.UserSummary(u.userId, u.firstName, "
+                + "u.lastName, u.email, u.phoneNumber, u.dateOfBirth, u.username, u.enabled) "
+                + "from ApplicationUser u where u.username = :username", UserSummary.class)
+                .setParameter("username", username)
+                .getResultStream()
+                .findFirst();
+    }
+
+}
@@ -0,0 +1,235 @@
+package com.twitter_backend.services;
+
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.twitter_backend.config.ReplicaRoutingDataSource;
+import com.twitter_backend.repositories.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+// Answers "is this email / username free" from Bloom filters over the users table, asking the database
+// (an indexed exists query) only when the filter reports a possible match.
+// The filters are built by streaming the table in the background once the application is ready, and rebuilt
+// when they fill up or get old. Users registered through other instances are picked up every
+// catch-up-interval-ms from created_at, so for that long after a registration elsewhere (5 s by default) a
+// check here may still call the email or username free; the unique indexes still reject the insert. Email
+// changes made elsewhere are only seen by the next rebuild. Until the first build finishes every check goes
+// to the primary, as do the checks the filter can't settle.
+// Values are lowercased and stripped of accents, which is how MySQL's default collation compares them.
+@Service
+public class AvailabilityService {
+
+    // Rows committed late, or stamped by an instance whose clock is behind, are still picked up
+    private static final long CATCH_UP_OVERLAP_MS = 60_000;
+
+    private record Filters(BloomFilter emails, BloomFilter usernames, long builtAt) {
+
+        void put(String email, String username) {
+            if (email != null) {
+                emails.put(email);
+            }
+            if (username != null) {
+                usernames.put(username);
+            }
+        }
+
+    }
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long expectedUsers;
+    private final double falsePositiveRate;
+    private final long rebuildIntervalMs;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("availability-rebuild").daemon(true).factory());
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean catchingUp = new AtomicBoolean();
+
+    // While a rebuild streams the table, new users go into both
+    private volatile Filters current;
+    private volatile Filters building;
+    // Users created before this (less the overlap) are in the filters
+    private volatile long caughtUpTo;
+
+    @Autowired
+    public AvailabilityService(UserRepository userRepository, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${app.availability.expected-users:1000000}") long expectedUsers,
+            @Value("${app.availability.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${app.availability.rebuild-interval-ms:3600000}") long rebuildIntervalMs) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (email == null) {
+            return false;
+        }
+        if (isEmailDefinitelyFree(email)) {
+            count("email", "filter");
+            return true;
+        }
+        count("email", "database");
+        return !ReplicaRoutingDataSource.onPrimary(() -> userRepository.existsByEmail(email));
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (username == null) {
+            return false;
+        }
+        if (isUsernameDefinitelyFree(username)) {
+            count("username", "filter");
+            return true;
+        }
+        count("username", "database");
+        return !ReplicaRoutingDataSource.onPrimary(() -> userRepository.existsByUsername(username));
+    }
+
+    // Filter only, false means "don't know"
+    public boolean isEmailDefinitelyFree(String email) {
+        Filters filters = current;
+        return filters != null && !filters.emails().mightContain(normalize(email));
+    }
+
+    // Filter only, false means "don't know"
+    public boolean isUsernameDefinitelyFree(String username) {
+        Filters filters = current;
+        return filters != null && !filters.usernames().mightContain(normalize(username));
+    }
+
+    // Call after every insert or email change, once it has committed
+    public void recordUser(String email, String username) {
+        String normalizedEmail = email != null ? normalize(email) : null;
+        String normalizedUsername = username != null ? normalize(username) : null;
+        // building before current, so a rebuild swapping them in between can't lose the value
+        Filters next = building;
+        Filters filters = current;
+        if (filters != null) {
+            filters.put(normalizedEmail, normalizedUsername);
+        }
+        if (next != null && next != filters) {
+            next.put(normalizedEmail, normalizedUsername);
+        }
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.availability.check-interval-ms:60000}")
+    public void rebuildIfStale() {
+        Filters filters = current;
+        if (filters == null
+                || filters.usernames().getInsertions() > filters.usernames().getCapacity()
+                || System.currentTimeMillis() - filters.builtAt() > rebuildIntervalMs) {
+            requestRebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.availability.catch-up-interval-ms:5000}")
+    public void requestCatchUp() {
+        if (current == null || rebuilding.get() || !catchingUp.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                try {
+                    catchUp();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    catchingUp.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            catchingUp.set(false);
+        }
+    }
+
+    // Runs on the rebuild thread, so never at the same time as a rebuild
+    void catchUp() {
+        long startedAt = System.currentTimeMillis();
+        Timestamp from = new Timestamp(caughtUpTo - CATCH_UP_OVERLAP_MS);
+        jdbcTemplate.query("SELECT email, username FROM users WHERE created_at >= ?", resultSet -> {
+            recordUser(resultSet.getString(1), resultSet.getString(2));
+        }, from);
+        caughtUpTo = startedAt;
+    }
+
+    public void requestRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuilder.execute(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuilding.set(false);
+        }
+    }
+
+    void rebuild() {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        long capacity = Math.max(expectedUsers, 2 * (rows != null ? rows : 0));
+        Filters next = new Filters(new BloomFilter(capacity, falsePositiveRate),
+                new BloomFilter(capacity, falsePositiveRate), System.currentTimeMillis());
+        building = next;
+
+        JdbcTemplate streaming = StreamingJdbc.templateFor(jdbcTemplate.getDataSource());
+        streaming.query("SELECT email, username FROM users", resultSet -> {
+            String email = resultSet.getString(1);
+            String username = resultSet.getString(2);
+            next.put(email != null ? normalize(email) : null, username != null ? normalize(username) : null);
+        });
+
+        current = next;
+        building = null;
+        caughtUpTo = next.builtAt();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    static String normalize(String value) {
+        String lower = value.trim().toLowerCase(Locale.ROOT);
+        return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    private void count(String field, String answeredBy) {
+        meterRegistry.counter("user.availability.checks", "field", field, "answered.by", answeredBy).increment();
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.twitter_backend.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.twitter_backend.config.ReplicaRoutingDataSource;
+import com.twitter_backend.exceptions.BatchTooLargeException;
+import com.twitter_backend.exceptions.EmailAlreadyExistsException;
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.BatchRegistrationResult;
+import com.twitter_backend.models.RegistrationObject;
+import com.twitter_backend.models.RegistrationRowResult;
+import com.twitter_backend.models.RegistrationRowStatus;
+import com.twitter_backend.models.Role;
+import com.twitter_backend.repositories.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Registers many users at once: taken emails are found with IN queries, usernames are allocated for the
+// whole batch together, and users are inserted chunk by chunk, one transaction per chunk. With
+// hibernate.jdbc.batch_size and order_inserts the users and their user_role_junction rows go out as JDBC
+// batches. A chunk that fails (another signup took an email or username meanwhile) is retried row by row
+// through UserService.registerUser, so one bad row doesn't sink its neighbours.
+@Service
+public class BatchRegistrationService {
+
+    private static final int QUERY_CHUNK = 1000;
+
+    private final UserRepository userRepository;
+    private final UsernameAllocator usernameAllocator;
+    private final RoleRegistry roleRegistry;
+    private final AvailabilityService availabilityService;
+    private final RecentWriteTracker recentWriteTracker;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final int maxRows;
+
+    @Autowired
+    public BatchRegistrationService(UserRepository userRepository, UsernameAllocator usernameAllocator,
+            RoleRegistry roleRegistry, AvailabilityService availabilityService,
+            RecentWriteTracker recentWriteTracker, UserService userService,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${app.registration.batch.chunk-size:500}") int chunkSize,
+            @Value("${app.registration.batch.max-rows:10000}") int maxRows) {
+        this.userRepository = userRepository;
+        this.usernameAllocator = usernameAllocator;
+        this.roleRegistry = roleRegistry;
+        this.availabilityService = availabilityService;
+        this.recentWriteTracker = recentWriteTracker;
+        this.userService = userService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+    }
+
+    public BatchRegistrationResult registerAll(List<RegistrationObject> registrations) {
+        if (registrations.size() > maxRows) {
+            throw new BatchTooLargeException(maxRows);
+        }
+        long start = System.nanoTime();
+        RegistrationRowResult[] results = new RegistrationRowResult[registrations.size()];
+
+        // Rows worth trying: valid, and the first in the batch to use their email
+        List<Integer> accepted = new ArrayList<>();
+        Set<String> batchEmails = new HashSet<>();
+        for (int i = 0; i < registrations.size(); i++) {
+            RegistrationObject registration = registrations.get(i);
+            if (registration == null || isBlank(registration.getEmail())) {
+                results[i] = rejected(i, RegistrationRowStatus.INVALID, "An email is required");
+            } else if (!batchEmails.add(registration.getEmail().toLowerCase(Locale.ROOT))) {
+                results[i] = rejected(i, RegistrationRowStatus.EMAIL_TAKEN, "Email appears earlier in the batch");
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        Set<String> takenEmails = findTakenEmails(registrations, accepted);
+        List<Integer> toInsert = new ArrayList<>();
+        for (int i : accepted) {
+            if (takenEmails.contains(registrations.get(i).getEmail().toLowerCase(Locale.ROOT))) {
+                results[i] = rejected(i, RegistrationRowStatus.EMAIL_TAKEN, "The provided email already exists");
+            } else {
+                toInsert.add(i);
+            }
+        }
+
+        Role userRole = roleRegistry.getByAuthority("USER");
+        for (int from = 0; from < toInsert.size(); from += chunkSize) {
+            insertChunk(registrations, toInsert.subList(from, Math.min(toInsert.size(), from + chunkSize)),
+                    userRole, results);
+        }
+
+        int registered = 0;
+        for (RegistrationRowResult result : results) {
+            if (result.status() == RegistrationRowStatus.REGISTERED) {
+                registered++;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        meterRegistry.counter("user.registration.batch.rows", "result", "registered").increment(registered);
+        meterRegistry.counter("user.registration.batch.rows", "result", "rejected")
+                .increment(results.length - registered);
+        double rowsPerSecond = elapsedNanos > 0 ? results.length * 1e9 / elapsedNanos : 0;
+        return new BatchRegistrationResult(List.of(results), registered, results.length - registered,
+                elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    private void insertChunk(List<RegistrationObject> registrations, List<Integer> rows, Role userRole,
+            RegistrationRowResult[] results) {
+        List<String> baseNames = new ArrayList<>(rows.size());
+        for (int i : rows) {
+            baseNames.add(registrations.get(i).getFirstName() + registrations.get(i).getLastName());
+        }
+
+        List<ApplicationUser> users = new ArrayList<>(rows.size());
+        try {
+            List<String> usernames = usernameAllocator.allocateAll(baseNames);
+            for (int j = 0; j < rows.size(); j++) {
+                ApplicationUser user = newUser(registrations.get(rows.get(j)), userRole);
+                user.setUsername(usernames.get(j));
+                users.add(user);
+            }
+            transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+        } catch (RuntimeException e) {
+            insertRowByRow(registrations, rows, results);
+            return;
+        }
+
+        for (int j = 0; j < rows.size(); j++) {
+            ApplicationUser user = users.get(j);
+            recentWriteTracker.recordWrite(user.getUsername());
+            availabilityService.recordUser(user.getEmail(), user.getUsername());
+            results[rows.get(j)] = new RegistrationRowResult(rows.get(j), RegistrationRowStatus.REGISTERED,
+                    user.getUserId(), user.getUsername(), null);
+        }
+    }
+
+    private void insertRowByRow(List<RegistrationObject> registrations, List<Integer> rows,
+            RegistrationRowResult[] results) {
+        for (int i : rows) {
+            try {
+                ApplicationUser user = userService.registerUser(registrations.get(i));
+                results[i] = new RegistrationRowResult(i, RegistrationRowStatus.REGISTERED, user.getUserId(),
+                        user.getUsername(), null);
+            } catch (EmailAlreadyExistsException e) {
+                results[i] = rejected(i, RegistrationRowStatus.EMAIL_TAKEN, e.getMessage());
+            } catch (RuntimeException e) {
+                results[i] = rejected(i, RegistrationRowStatus.FAILED, e.getMessage());
+            }
+        }
+    }
+
+    // Lowercased emails of accepted rows that already exist. Only rows the availability filter can't clear
+    // are queried.
+    private Set<String> findTakenEmails(List<RegistrationObject> registrations, List<Integer> rows) {
+        List<String> toQuery = new ArrayList<>();
+        for (int i : rows) {
+            String email = registrations.get(i).getEmail();
+            if (!availabilityService.isEmailDefinitelyFree(email)) {
+                toQuery.add(email);
+            }
+        }
+
+        Set<String> taken = new HashSet<>();
+        for (int from = 0; from < toQuery.size(); from += QUERY_CHUNK) {
+            List<String> chunk = toQuery.subList(from, Math.min(toQuery.size(), from + QUERY_CHUNK));
+            // Asked of the primary, a replica can miss a signup that just committed
+            for (String email : ReplicaRoutingDataSource.onPrimary(() -> userRepository.findExistingEmails(chunk))) {
+                taken.add(email.toLowerCase(Locale.ROOT));
+            }
+        }
+        return taken;
+    }
+
+    private static ApplicationUser newUser(RegistrationObject registration, Role userRole) {
+        ApplicationUser user = new ApplicationUser();
+        user.setFirstName(registration.getFirstName());
+        user.setLastName(registration.getLastName());
+        user.setEmail(registration.getEmail());
+        user.setDateOfBirth(registration.getDateOfBirth());
+        user.setAuthorities(Set.of(userRole));
+        return user;
+    }
+
+    private static RegistrationRowResult rejected(int index, RegistrationRowStatus status, String error) {
+        return new RegistrationRowResult(index, status, null, null, error);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+}
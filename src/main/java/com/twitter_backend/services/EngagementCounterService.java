@@ -0,0 +1,276 @@
+package com.twitter_backend.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.twitter_backend.exceptions.TweetDoesntExistException;
+import com.twitter_backend.models.EngagementCounts;
+import com.twitter_backend.models.EngagementType;
+import com.twitter_backend.models.idGenerators.SnowflakeIdFactory;
+import com.twitter_backend.repositories.TweetRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PreDestroy;
+
+// Likes, retweets and views per tweet. An UPDATE per event would queue every engagement with a popular tweet
+// on that tweet's row lock, so events are added to LongAdders in memory instead and the totals are written
+// behind, adding each tweet's deltas to tweet_counters in batched upserts every flush-interval-ms.
+// Reads return the persisted totals plus what is still in memory. Deltas not yet flushed are lost if the
+// process dies; a clean shutdown flushes them.
+@Service
+public class EngagementCounterService {
+
+    private static final int TYPES = EngagementType.values().length;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TweetRepository tweetRepository;
+    private final RecentWriteTracker recentWriteTracker;
+    // Tweets are never deleted, so one found once needs no second lookup
+    private final Cache<Long, Boolean> existingTweets;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ConcurrentHashMap<Long, PendingCounts> pending = new ConcurrentHashMap<>();
+    private final Counter flushedRows;
+    private final Counter failedFlushes;
+    private final Timer flushTimer;
+
+    // Counters removed from pending by the last flush, drained once more by the next one. Guarded by this.
+    private List<PendingCounts> retired = new ArrayList<>();
+    // The deltas of a flush between draining them and committing them, so reads still count them
+    private volatile Map<Long, long[]> flushing = Map.of();
+    private String upsertSql;
+
+    @Autowired
+    public EngagementCounterService(JdbcTemplate jdbcTemplate, TweetRepository tweetRepository,
+            RecentWriteTracker recentWriteTracker, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry, @Value("${app.engagement.flush-batch-size:500}") int batchSize,
+            @Value("${app.engagement.max-known-tweets:100000}") long maxKnownTweets) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tweetRepository = tweetRepository;
+        this.recentWriteTracker = recentWriteTracker;
+        this.existingTweets = Caffeine.newBuilder().maximumSize(maxKnownTweets).recordStats().build();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.flushedRows = meterRegistry.counter("engagement.flush.rows");
+        this.failedFlushes = meterRegistry.counter("engagement.flush.failures");
+        this.flushTimer = meterRegistry.timer("engagement.flush");
+        meterRegistry.gaugeMapSize("engagement.pending.tweets", List.of(), pending);
+        CaffeineCacheMetrics.monitor(meterRegistry, existingTweets, "engagement.known-tweets");
+    }
+
+    // The existence check is a primary key read, it takes no locks. A tweet young enough that a replica may
+    // not have it yet is looked up on the primary.
+    public void record(long tweetId, EngagementType type) {
+        if (existingTweets.getIfPresent(tweetId) == null) {
+            if (!recentWriteTracker.readCreatedAt(SnowflakeIdFactory.timestampOf(tweetId),
+                    () -> tweetRepository.existsById(tweetId))) {
+                throw new TweetDoesntExistException();
+            }
+            existingTweets.put(tweetId, Boolean.TRUE);
+        }
+        increment(tweetId, type);
+    }
+
+    public void increment(long tweetId, EngagementType type) {
+        add(tweetId, type.ordinal(), 1);
+    }
+
+    private void add(long tweetId, int type, long delta) {
+        PendingCounts counts = pending.computeIfAbsent(tweetId, PendingCounts::new);
+        counts.adders[type].add(delta);
+        if (counts.retired) {
+            // A flush removed these counts around our add and may or may not have drained it. Take it back and
+            // add to the live counts; the next flush drains the retired ones again and sees both or neither.
+            counts.adders[type].add(-delta);
+            add(tweetId, type, delta);
+        }
+    }
+
+    // Exact except while a flush commits, when a read may count the batch being written twice or not at all
+    public EngagementCounts getCounts(long tweetId) {
+        List<EngagementCounts> rows = jdbcTemplate.query(
+                "SELECT likes, retweets, views FROM tweet_counters WHERE tweet_id = ?",
+                (resultSet, rowNum) -> new EngagementCounts(resultSet.getLong(1), resultSet.getLong(2),
+                        resultSet.getLong(3)),
+                tweetId);
+        EngagementCounts counts = rows.isEmpty() ? EngagementCounts.ZERO : rows.get(0);
+
+        long[] inFlight = flushing.get(tweetId);
+        if (inFlight != null) {
+            counts = counts.plus(inFlight);
+        }
+        PendingCounts unflushed = pending.get(tweetId);
+        return unflushed != null ? counts.plus(unflushed.sums()) : counts;
+    }
+
+    @Scheduled(fixedDelayString = "${app.engagement.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        flushTimer.record(this::writeBehind);
+    }
+
+    // Scheduling has stopped by the time beans are destroyed, and the DataSource outlives this bean
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void writeBehind() {
+        // Sorted, so concurrent flushes from several instances lock rows in the same order
+        Map<Long, long[]> deltas = new TreeMap<>();
+        for (PendingCounts counts : retired) {
+            counts.drainInto(deltas);
+        }
+        retired = new ArrayList<>();
+        for (PendingCounts counts : pending.values()) {
+            if (!counts.drainInto(deltas)) {
+                // Idle since the last flush. Adds that land before the next flush are drained then.
+                counts.retired = true;
+                pending.remove(counts.tweetId, counts);
+                retired.add(counts);
+            }
+        }
+        deltas.values().removeIf(PendingCounts::isZero);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        flushing = deltas;
+        try {
+            List<Object[]> rows = new ArrayList<>(deltas.size());
+            deltas.forEach((tweetId, typeDeltas) -> rows.add(
+                    new Object[] { tweetId, typeDeltas[0], typeDeltas[1], typeDeltas[2] }));
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<Object[]> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                try {
+                    // One transaction per chunk, so a failed chunk is either fully applied or not at all
+                    transactionTemplate.executeWithoutResult(
+                            status -> jdbcTemplate.batchUpdate(upsertSql(), chunk));
+                    flushedRows.increment(chunk.size());
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    failedFlushes.increment();
+                    // Put this chunk and the rest back for the next flush
+                    for (Object[] row : rows.subList(from, rows.size())) {
+                        requeue((Long) row[0], deltas.get(row[0]));
+                    }
+                    return;
+                }
+            }
+        } finally {
+            flushing = Map.of();
+        }
+    }
+
+    private void requeue(long tweetId, long[] typeDeltas) {
+        for (int type = 0; type < TYPES; type++) {
+            if (typeDeltas[type] != 0) {
+                add(tweetId, type, typeDeltas[type]);
+            }
+        }
+    }
+
+    // Adds the deltas to an existing row, or inserts them as the first totals. MySQL takes a row alias,
+    // MariaDB only the VALUES() function MySQL deprecated, and everything else gets standard MERGE.
+    private String upsertSql() {
+        if (upsertSql == null) {
+            String product = databaseProduct();
+            upsertSql = "MySQL".equals(product)
+                    ? "INSERT INTO tweet_counters (tweet_id, likes, retweets, views) VALUES (?, ?, ?, ?) AS delta "
+                            + "ON DUPLICATE KEY UPDATE likes = tweet_counters.likes + delta.likes, "
+                            + "retweets = tweet_counters.retweets + delta.retweets, "
+                            + "views = tweet_counters.views + delta.views"
+                    : "MariaDB".equals(product)
+                    ? "INSERT INTO tweet_counters (tweet_id, likes, retweets, views) VALUES (?, ?, ?, ?) "
+                            + "ON DUPLICATE KEY UPDATE likes = likes + VALUES(likes), "
+                            + "retweets = retweets + VALUES(retweets), views = views + VALUES(views)"
+                    : "MERGE INTO tweet_counters AS c USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), "
+                            + "CAST(? AS BIGINT), CAST(? AS BIGINT))) AS delta (tweet_id, likes, retweets, views) "
+                            + "ON c.tweet_id = delta.tweet_id "
+                            + "WHEN MATCHED THEN UPDATE SET likes = c.likes + delta.likes, "
+                            + "retweets = c.retweets + delta.retweets, views = c.views + delta.views "
+                            + "WHEN NOT MATCHED THEN INSERT (tweet_id, likes, retweets, views) "
+                            + "VALUES (delta.tweet_id, delta.likes, delta.retweets, delta.views)";
+        }
+        return upsertSql;
+    }
+
+    // MariaDB reports itself as MySQL through MySQL Connector/J, the version string still tells them apart
+    private String databaseProduct() {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), metaData -> {
+                String product = metaData.getDatabaseProductName();
+                return "MySQL".equals(product) && metaData.getDatabaseProductVersion().contains("MariaDB")
+                        ? "MariaDB"
+                        : product;
+            });
+        } catch (MetaDataAccessException e) {
+            throw new DataAccessResourceFailureException("Could not read the database product", e);
+        }
+    }
+
+    private static final class PendingCounts {
+
+        private final long tweetId;
+        private final LongAdder[] adders = new LongAdder[TYPES];
+        private volatile boolean retired;
+
+        private PendingCounts(long tweetId) {
+            this.tweetId = tweetId;
+            for (int type = 0; type < TYPES; type++) {
+                adders[type] = new LongAdder();
+            }
+        }
+
+        private long[] sums() {
+            long[] sums = new long[TYPES];
+            for (int type = 0; type < TYPES; type++) {
+                sums[type] = adders[type].sum();
+            }
+            return sums;
+        }
+
+        // Moves the counts into deltas, false when there was nothing to move
+        private boolean drainInto(Map<Long, long[]> deltas) {
+            boolean any = false;
+            for (int type = 0; type < TYPES; type++) {
+                long delta = adders[type].sumThenReset();
+                if (delta != 0) {
+                    deltas.computeIfAbsent(tweetId, id -> new long[TYPES])[type] += delta;
+                    any = true;
+                }
+            }
+            return any;
+        }
+
+        private static boolean isZero(long[] typeDeltas) {
+            for (long delta : typeDeltas) {
+                if (delta != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
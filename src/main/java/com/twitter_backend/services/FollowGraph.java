@@ -0,0 +1,441 @@
+package com.twitter_backend.services;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+// The follows table held in memory for reads. Every user with an edge gets a dense int id, and each user's
+// followees and followers are IntAdjacency sets of those ids, about 4 bytes per edge per direction instead of
+// an entity per edge. Reads are lock-free; writes are serialized on one lock and only swap immutable
+// adjacency objects, so a reader always sees a consistent set.
+//
+// The table stays the source of truth. After startup it is streamed in twice in the background, ordered by
+// follower and then by followee, building one user's list at a time. Changes made meanwhile are logged and
+// replayed in order once both scans finish; until then isReady is false and callers should ask the
+// database. Callers apply a change here only after it has committed.
+//
+// Changes made through other instances arrive by a periodic catch-up: follows by their created_at and
+// unfollows by the tombstones in follow_removals, both re-read with an overlap so late commits aren't
+// missed. An edge touched in that window is set to what the table says, so a catch-up racing a local
+// change can briefly undo it until the next one. A graph that hasn't caught up for longer than the
+// tombstones are kept reloads instead.
+@Component
+public class FollowGraph {
+
+    private record Change(UUID followerId, UUID followeeId, boolean follow) {
+    }
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    // Changes logged until a load succeeds. Past this the log starts over, and a catch-up from the start of
+    // the scans covers what it lost.
+    static final int MAX_PENDING = 100_000;
+    private static final long CATCH_UP_OVERLAP_MS = 60_000;
+    static final long REMOVAL_RETENTION_MS = 3_600_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("follow-graph-load").daemon(true).factory());
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private final AtomicBoolean catchingUp = new AtomicBoolean();
+    private final Object writeLock = new Object();
+
+    private final ConcurrentHashMap<UUID, Integer> denseIds = new ConcurrentHashMap<>();
+    private volatile AtomicReferenceArray<UUID> userIds = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private volatile AtomicReferenceArray<IntAdjacency> following = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private volatile AtomicReferenceArray<IntAdjacency> followers = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private volatile boolean ready;
+    private volatile long caughtUpTo;
+
+    // Guarded by writeLock
+    private int size;
+    private List<Change> pending = new ArrayList<>();
+    private boolean pendingOverflowed;
+
+    @Autowired
+    public FollowGraph(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void follow(UUID followerId, UUID followeeId) {
+        apply(new Change(followerId, followeeId, true));
+    }
+
+    public void unfollow(UUID followerId, UUID followeeId) {
+        apply(new Change(followerId, followeeId, false));
+    }
+
+    public boolean isFollowing(UUID followerId, UUID followeeId) {
+        int follower = denseIdOf(followerId);
+        int followee = denseIdOf(followeeId);
+        return follower >= 0 && followee >= 0 && followingOf(follower).contains(followee);
+    }
+
+    public boolean isMutual(UUID a, UUID b) {
+        return isFollowing(a, b) && isFollowing(b, a);
+    }
+
+    public int followerCount(UUID userId) {
+        int user = denseIdOf(userId);
+        return user >= 0 ? followersOf(user).size() : 0;
+    }
+
+    public int followingCount(UUID userId) {
+        int user = denseIdOf(userId);
+        return user >= 0 ? followingOf(user).size() : 0;
+    }
+
+    // Users that userId follows and who follow back, walking the shorter of the two lists
+    public List<UUID> mutualFollows(UUID userId, int limit) {
+        int user = denseIdOf(userId);
+        List<UUID> mutual = new ArrayList<>();
+        if (user < 0) {
+            return mutual;
+        }
+        IntAdjacency followees = followingOf(user);
+        IntAdjacency followerSet = followersOf(user);
+        boolean walkFollowees = followees.size() <= followerSet.size();
+        IntAdjacency other = walkFollowees ? followerSet : followees;
+        for (int candidate : (walkFollowees ? followees : followerSet).toArray()) {
+            if (mutual.size() >= limit) {
+                break;
+            }
+            if (other.contains(candidate)) {
+                mutual.add(userIdOf(candidate));
+            }
+        }
+        return mutual;
+    }
+
+    // Dense id of a user with at least one edge, or -1
+    public int denseIdOf(UUID userId) {
+        Integer id = denseIds.get(userId);
+        return id != null ? id : -1;
+    }
+
+    public UUID userIdOf(int denseId) {
+        return userIds.get(denseId);
+    }
+
+    // Sorted dense ids of the user's followers
+    public int[] followerIdsOf(int denseId) {
+        return followersOf(denseId).toArray();
+    }
+
+    // Sorted dense ids of the users this user follows
+    public int[] followingIdsOf(int denseId) {
+        return followingOf(denseId).toArray();
+    }
+
+    // Bulk loading. intern returns the user's dense id, assigning the next one if needed. The put methods
+    // replace a user's whole list with ids, which must be sorted and distinct and are not copied.
+    public int intern(UUID userId) {
+        Integer id = denseIds.get(userId);
+        if (id != null) {
+            return id;
+        }
+        synchronized (writeLock) {
+            id = denseIds.get(userId);
+            if (id == null) {
+                id = size++;
+                ensureCapacity(size);
+                userIds.set(id, userId);
+                // Published after the slot is set, so whoever finds the id can read it back
+                denseIds.put(userId, id);
+            }
+            return id;
+        }
+    }
+
+    public void putFollowing(int denseId, int[] followeeIds) {
+        synchronized (writeLock) {
+            following.set(denseId, IntAdjacency.of(followeeIds));
+        }
+    }
+
+    public void putFollowers(int denseId, int[] followerIds) {
+        synchronized (writeLock) {
+            followers.set(denseId, IntAdjacency.of(followerIds));
+        }
+    }
+
+    private IntAdjacency followingOf(int denseId) {
+        return orEmpty(following, denseId);
+    }
+
+    private IntAdjacency followersOf(int denseId) {
+        return orEmpty(followers, denseId);
+    }
+
+    private static IntAdjacency orEmpty(AtomicReferenceArray<IntAdjacency> lists, int denseId) {
+        IntAdjacency list = denseId < lists.length() ? lists.get(denseId) : null;
+        return list != null ? list : IntAdjacency.EMPTY;
+    }
+
+    private void apply(Change change) {
+        synchronized (writeLock) {
+            if (pending == null) {
+                applyLocked(change);
+                return;
+            }
+            if (pending.size() == MAX_PENDING) {
+                // Keeping only the newest changes still ends every edge they touch in its committed state
+                pending.clear();
+                pendingOverflowed = true;
+            }
+            pending.add(change);
+        }
+    }
+
+    private void applyLocked(Change change) {
+        int follower = intern(change.followerId());
+        int followee = intern(change.followeeId());
+        IntAdjacency followees = followingOf(follower);
+        IntAdjacency followerSet = followersOf(followee);
+        if (change.follow()) {
+            following.set(follower, followees.with(followee));
+            followers.set(followee, followerSet.with(follower));
+        } else {
+            following.set(follower, followees.without(followee));
+            followers.set(followee, followerSet.without(follower));
+        }
+    }
+
+    // Holding writeLock. Readers may still hold the old arrays, which only lack slots that didn't exist yet.
+    private void ensureCapacity(int capacity) {
+        if (capacity <= userIds.length()) {
+            return;
+        }
+        int grown = Math.max(capacity, userIds.length() + (userIds.length() >> 1));
+        userIds = copyOf(userIds, grown);
+        following = copyOf(following, grown);
+        followers = copyOf(followers, grown);
+    }
+
+    private static <T> AtomicReferenceArray<T> copyOf(AtomicReferenceArray<T> array, int length) {
+        AtomicReferenceArray<T> copy = new AtomicReferenceArray<>(length);
+        for (int i = 0; i < array.length(); i++) {
+            copy.set(i, array.get(i));
+        }
+        return copy;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestLoad();
+    }
+
+    // A failed load leaves the graph not ready, try again
+    @Scheduled(fixedDelayString = "${app.follow-graph.retry-interval-ms:60000}")
+    public void loadIfNotReady() {
+        if (!ready) {
+            requestLoad();
+        }
+    }
+
+    public void requestLoad() {
+        if (!loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            loader.execute(() -> {
+                try {
+                    load();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    loading.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.set(false);
+        }
+    }
+
+    // Picks up changes other instances made since the last catch-up
+    @Scheduled(fixedDelayString = "${app.follow-graph.catch-up-interval-ms:5000}")
+    public void requestCatchUp() {
+        if (!ready || loading.get() || !catchingUp.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            loader.execute(() -> {
+                try {
+                    catchUp();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    catchingUp.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            catchingUp.set(false);
+        }
+    }
+
+    void catchUp() {
+        long startedAt = System.currentTimeMillis();
+        if (startedAt - caughtUpTo > REMOVAL_RETENTION_MS - CATCH_UP_OVERLAP_MS) {
+            // Tombstones from then may be pruned already
+            synchronized (writeLock) {
+                ready = false;
+                pending = new ArrayList<>();
+                pendingOverflowed = false;
+            }
+            load();
+            return;
+        }
+        Timestamp from = new Timestamp(caughtUpTo - CATCH_UP_OVERLAP_MS);
+        // Removals first: an edge followed again by the time follows is read is in both, and kept
+        List<Change> removed = jdbcTemplate.query(
+                "SELECT follower_id, followee_id FROM follow_removals WHERE removed_at >= ?",
+                (resultSet, rowNum) -> changeOf(resultSet, false), from);
+        List<Change> followed = jdbcTemplate.query("SELECT follower_id, followee_id FROM follows WHERE created_at >= ?",
+                (resultSet, rowNum) -> changeOf(resultSet, true), from);
+        Set<Change> present = new HashSet<>(followed);
+        synchronized (writeLock) {
+            for (Change change : removed) {
+                if (!present.contains(new Change(change.followerId(), change.followeeId(), true))) {
+                    applyLocked(change);
+                }
+            }
+            for (Change change : followed) {
+                applyLocked(change);
+            }
+        }
+        jdbcTemplate.update("DELETE FROM follow_removals WHERE removed_at < ?",
+                new Timestamp(startedAt - REMOVAL_RETENTION_MS));
+        caughtUpTo = startedAt;
+    }
+
+    private static Change changeOf(ResultSet resultSet, boolean follow) throws SQLException {
+        return new Change(uuidOf(resultSet.getBytes(1)), uuidOf(resultSet.getBytes(2)), follow);
+    }
+
+    void load() {
+        if (ready) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        // Left over from a load that failed part way
+        synchronized (writeLock) {
+            denseIds.clear();
+            userIds = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+            following = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+            followers = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+            size = 0;
+        }
+
+        JdbcTemplate streaming = StreamingJdbc.templateFor(jdbcTemplate.getDataSource());
+        GroupLoader followees = new GroupLoader(this::putFollowing);
+        streaming.query("SELECT follower_id, followee_id FROM follows ORDER BY follower_id, followee_id", followees);
+        followees.flush();
+        GroupLoader followerLists = new GroupLoader(this::putFollowers);
+        streaming.query("SELECT followee_id, follower_id FROM follows ORDER BY followee_id, follower_id",
+                followerLists);
+        followerLists.flush();
+
+        if (finishLoading(startedAt)) {
+            catchUp();
+        }
+    }
+
+    // Ends a load, also for callers that filled the graph through intern and the put methods.
+    public void finishLoading() {
+        finishLoading(System.currentTimeMillis());
+    }
+
+    // Every change since the scans started is in the log, and replaying an edge's changes in order ends
+    // in its committed state whether or not the scans saw them. Returns true when part of the log was
+    // dropped, and those changes still need a catch-up from scannedFrom.
+    private boolean finishLoading(long scannedFrom) {
+        synchronized (writeLock) {
+            boolean dropped = pendingOverflowed;
+            if (pending != null) {
+                for (Change change : pending) {
+                    applyLocked(change);
+                }
+                pending = null;
+                pendingOverflowed = false;
+            }
+            caughtUpTo = scannedFrom;
+            ready = true;
+            return dropped;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private interface ListSink {
+        void put(int denseId, int[] ids);
+    }
+
+    // Rows arrive grouped by their first column. Each group becomes one sorted list.
+    private final class GroupLoader implements RowCallbackHandler {
+        private final ListSink sink;
+        private UUID current;
+        private int[] ids = new int[16];
+        private int count;
+
+        GroupLoader(ListSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            UUID owner = uuidOf(resultSet.getBytes(1));
+            if (!owner.equals(current)) {
+                flush();
+                current = owner;
+            }
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = intern(uuidOf(resultSet.getBytes(2)));
+        }
+
+        void flush() {
+            if (current != null && count > 0) {
+                int[] sorted = Arrays.copyOf(ids, count);
+                Arrays.sort(sorted);
+                sink.put(intern(current), sorted);
+            }
+            count = 0;
+        }
+    }
+
+    private static UUID uuidOf(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+}
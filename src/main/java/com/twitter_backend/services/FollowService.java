@@ -0,0 +1,131 @@
+package com.twitter_backend.services;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.twitter_backend.config.ReplicaRoutingDataSource;
+import com.twitter_backend.exceptions.InvalidFollowException;
+import com.twitter_backend.models.Follow;
+import com.twitter_backend.models.FollowCounts;
+import com.twitter_backend.models.FollowRemoval;
+import com.twitter_backend.repositories.FollowRemovalRepository;
+import com.twitter_backend.repositories.FollowRepository;
+
+// Writes go to the follows table and then to FollowGraph, under a lock striped by follower so the graph
+// applies changes to an edge in the order they committed. Reads come from the graph once it has loaded,
+// and from the primary before that, so a follow is visible to the next read. Changes made through other
+// instances reach the graph through its catch-up, a few seconds later; an unfollow leaves a FollowRemoval
+// for it to find.
+@Service
+public class FollowService {
+
+    static final int MAX_MUTUAL = 1000;
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final FollowRepository followRepository;
+    private final FollowRemovalRepository followRemovalRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final FollowGraph followGraph;
+    private final UserService userService;
+    private final TimelineService timelineService;
+
+    @Autowired
+    public FollowService(FollowRepository followRepository, FollowRemovalRepository followRemovalRepository,
+            FollowGraph followGraph, UserService userService, TimelineService timelineService,
+            PlatformTransactionManager transactionManager) {
+        this.followRepository = followRepository;
+        this.followRemovalRepository = followRemovalRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.followGraph = followGraph;
+        this.userService = userService;
+        this.timelineService = timelineService;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public void follow(String follower, String followee) {
+        UUID followerId = userIdOf(follower);
+        UUID followeeId = userIdOf(followee);
+        if (followerId.equals(followeeId)) {
+            throw new InvalidFollowException();
+        }
+        ReentrantLock lock = lockFor(followerId);
+        lock.lock();
+        try {
+            try {
+                followRepository.save(new Follow(followerId, followeeId));
+            } catch (DataIntegrityViolationException e) {
+                // Already following
+            }
+            followGraph.follow(followerId, followeeId);
+        } finally {
+            lock.unlock();
+        }
+        timelineService.invalidate(followerId);
+    }
+
+    public void unfollow(String follower, String followee) {
+        UUID followerId = userIdOf(follower);
+        UUID followeeId = userIdOf(followee);
+        ReentrantLock lock = lockFor(followerId);
+        lock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (followRepository.deleteEdge(followerId, followeeId) > 0) {
+                    followRemovalRepository.save(new FollowRemoval(followerId, followeeId));
+                }
+            });
+            followGraph.unfollow(followerId, followeeId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isFollowing(String follower, String followee) {
+        UUID followerId = userIdOf(follower);
+        UUID followeeId = userIdOf(followee);
+        if (followGraph.isReady()) {
+            return followGraph.isFollowing(followerId, followeeId);
+        }
+        return ReplicaRoutingDataSource.onPrimary(
+                () -> followRepository.existsByFollowerIdAndFolloweeId(followerId, followeeId));
+    }
+
+    public FollowCounts getCounts(String username) {
+        UUID userId = userIdOf(username);
+        if (followGraph.isReady()) {
+            return new FollowCounts(followGraph.followerCount(userId), followGraph.followingCount(userId));
+        }
+        return ReplicaRoutingDataSource.onPrimary(() -> new FollowCounts(followRepository.countByFolloweeId(userId),
+                followRepository.countByFollowerId(userId)));
+    }
+
+    // Users this user follows who follow back
+    public List<UUID> getMutualFollows(String username, int limit) {
+        UUID userId = userIdOf(username);
+        int clamped = Math.clamp(limit, 1, MAX_MUTUAL);
+        if (followGraph.isReady()) {
+            return followGraph.mutualFollows(userId, clamped);
+        }
+        return ReplicaRoutingDataSource.onPrimary(() -> followRepository.findMutualFollows(userId, Limit.of(clamped)));
+    }
+
+    private UUID userIdOf(String username) {
+        return userService.getUserByUsername(username).getUserId();
+    }
+
+    private ReentrantLock lockFor(UUID followerId) {
+        return locks[Math.floorMod(followerId.hashCode(), STRIPES)];
+    }
+
+}
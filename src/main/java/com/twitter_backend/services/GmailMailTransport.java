@@ -0,0 +1,63 @@
+package com.twitter_backend.services;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import org.apache.tomcat.util.codec.binary.Base64;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+import com.twitter_backend.config.GmailClientProvider;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "gmail", matchIfMissing = true)
+public class GmailMailTransport implements MailTransport {
+
+    private static final Session SESSION = Session.getDefaultInstance(new Properties(), null);
+
+    private final GmailClientProvider gmailClientProvider;
+
+    @Autowired
+    public GmailMailTransport(GmailClientProvider gmailClientProvider) {
+        this.gmailClientProvider = gmailClientProvider;
+    }
+
+    @Override
+    public void send(String toAdress, String subject, String content) throws Exception {
+        Message message = new Message();
+        message.setRaw(encode(System.getenv("MAIL_SERVICE_ADDRESS"), toAdress, subject, content));
+        Gmail gmail = gmailClientProvider.get();
+        gmail.users().messages().send("me", message).execute();
+    }
+
+    @Override
+    public boolean isReady() {
+        if (gmailClientProvider.getState() == GmailClientProvider.State.READY) {
+            return true;
+        }
+        gmailClientProvider.start();
+        return false;
+    }
+
+    public static String encode(String fromAdress, String toAdress, String subject, String content)
+            throws MessagingException, java.io.IOException {
+        MimeMessage email = new MimeMessage(SESSION);
+        email.setFrom(new InternetAddress(fromAdress));
+        email.addRecipient(jakarta.mail.Message.RecipientType.TO, new InternetAddress(toAdress));
+        email.setSubject(subject);
+        email.setText(content);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        email.writeTo(buffer);
+        return Base64.encodeBase64String(buffer.toByteArray());
+    }
+
+}
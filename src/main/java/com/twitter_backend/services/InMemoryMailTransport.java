@@ -0,0 +1,33 @@
+package com.twitter_backend.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Keeps sent mail in memory instead of calling Gmail. Used for tests and load runs.
+@Component
+@ConditionalOnProperty(name = "mail.transport", havingValue = "memory")
+public class InMemoryMailTransport implements MailTransport {
+
+    public record SentMail(String toAdress, String subject, String content) {
+    }
+
+    private final ConcurrentLinkedQueue<SentMail> sentMails = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void send(String toAdress, String subject, String content) {
+        sentMails.add(new SentMail(toAdress, subject, content));
+    }
+
+    public List<SentMail> getSentMails() {
+        return new ArrayList<>(sentMails);
+    }
+
+    public void clear() {
+        sentMails.clear();
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.twitter_backend.services;
+
+import java.util.Arrays;
+
+// An immutable sorted set of dense user ids. A change copies only the sorted added and removed arrays, and
+// they are merged into base once they reach a sixteenth of it. A change on a list of n ids therefore copies
+// up to n/16 ints, plus an amortized 16 for the merges, instead of all n, while contains stays a couple of
+// binary searches. Invariants: added and base are disjoint, removed is a subset of base.
+final class IntAdjacency {
+
+    private static final int[] NONE = new int[0];
+    private static final int MIN_DELTA = 32;
+
+    static final IntAdjacency EMPTY = new IntAdjacency(NONE, NONE, NONE);
+
+    private final int[] base;
+    private final int[] added;
+    private final int[] removed;
+
+    private IntAdjacency(int[] base, int[] added, int[] removed) {
+        this.base = base;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    // ids must be sorted and distinct, and are not copied
+    static IntAdjacency of(int[] ids) {
+        return ids.length == 0 ? EMPTY : new IntAdjacency(ids, NONE, NONE);
+    }
+
+    boolean contains(int id) {
+        return Arrays.binarySearch(added, id) >= 0
+                || Arrays.binarySearch(base, id) >= 0 && Arrays.binarySearch(removed, id) < 0;
+    }
+
+    int size() {
+        return base.length + added.length - removed.length;
+    }
+
+    IntAdjacency with(int id) {
+        if (Arrays.binarySearch(removed, id) >= 0) {
+            return compacted(base, added, remove(removed, id));
+        }
+        if (Arrays.binarySearch(base, id) >= 0 || Arrays.binarySearch(added, id) >= 0) {
+            return this;
+        }
+        return compacted(base, insert(added, id), removed);
+    }
+
+    IntAdjacency without(int id) {
+        if (Arrays.binarySearch(added, id) >= 0) {
+            return compacted(base, remove(added, id), removed);
+        }
+        if (Arrays.binarySearch(base, id) < 0 || Arrays.binarySearch(removed, id) >= 0) {
+            return this;
+        }
+        return compacted(base, added, insert(removed, id));
+    }
+
+    // Sorted
+    int[] toArray() {
+        if (added.length == 0 && removed.length == 0) {
+            return base.clone();
+        }
+        int[] merged = new int[size()];
+        int b = 0, a = 0, r = 0, out = 0;
+        while (b < base.length || a < added.length) {
+            if (a == added.length || b < base.length && base[b] < added[a]) {
+                if (r < removed.length && removed[r] == base[b]) {
+                    r++;
+                } else {
+                    merged[out++] = base[b];
+                }
+                b++;
+            } else {
+                merged[out++] = added[a++];
+            }
+        }
+        return merged;
+    }
+
+    private static IntAdjacency compacted(int[] base, int[] added, int[] removed) {
+        if (added.length + removed.length < Math.max(MIN_DELTA, base.length >>> 4)) {
+            return added.length == 0 && removed.length == 0 && base.length == 0 ? EMPTY
+                    : new IntAdjacency(base, added, removed);
+        }
+        return of(new IntAdjacency(base, added, removed).toArray());
+    }
+
+    private static int[] insert(int[] sorted, int id) {
+        int at = -Arrays.binarySearch(sorted, id) - 1;
+        int[] copy = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, at);
+        copy[at] = id;
+        System.arraycopy(sorted, at, copy, at + 1, sorted.length - at);
+        return copy;
+    }
+
+    private static int[] remove(int[] sorted, int id) {
+        if (sorted.length == 1) {
+            return NONE;
+        }
+        int at = Arrays.binarySearch(sorted, id);
+        int[] copy = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, copy, 0, at);
+        System.arraycopy(sorted, at + 1, copy, at, sorted.length - at - 1);
+        return copy;
+    }
+
+}
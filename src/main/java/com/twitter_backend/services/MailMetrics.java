@@ -0,0 +1,65 @@
+package com.twitter_backend.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// mail.send (timer) and mail.send.failures (counter) are tagged with exception, "none" on success.
+// mail.outbox.pending is the PENDING row count from the last dispatcher poll.
+// mail.outbox.dead counts messages given up on after their last attempt.
+@Component
+public class MailMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong pendingMessages = new AtomicLong();
+
+    @Autowired
+    public MailMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("mail.outbox.pending", pendingMessages, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    public void recordSend(long durationNanos, Throwable error) {
+        String exception = error == null ? "none" : error.getClass().getSimpleName();
+        Timer.builder("mail.send")
+                .description("Time spent handing one email to the mail transport")
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            Counter.builder("mail.send.failures")
+                    .tag("exception", exception)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    public void recordDeadLetter() {
+        Counter.builder("mail.outbox.dead")
+                .description("Emails given up on after the last attempt")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void setPendingMessages(long pending) {
+        pendingMessages.set(pending);
+    }
+
+    public void registerWorkerQueue(Supplier<Number> queuedSends) {
+        Gauge.builder("mail.outbox.workers.queued", queuedSends)
+                .description("Sends waiting for a free outbox worker")
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.twitter_backend.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.twitter_backend.models.MailOutboxMessage;
+import com.twitter_backend.models.MailOutboxStatus;
+import com.twitter_backend.repositories.MailOutboxRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// Each poll claims a batch of due messages in a short read-write transaction, which also keeps the read on the
+// primary: locked rows are skipped by other instances and the claimed ones are marked SENDING before any
+// mail goes out. A claim lapses after claimLeaseMs, so messages of an instance that dies mid-batch are
+// picked up again.
+@Component
+public class MailOutboxDispatcher {
+
+    private static final Set<MailOutboxStatus> CLAIMABLE = Set.of(MailOutboxStatus.PENDING, MailOutboxStatus.SENDING);
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final MailTransport mailTransport;
+    private final MailMetrics mailMetrics;
+    private final ThreadPoolExecutor workers;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long sendTimeoutMs;
+    private final long claimLeaseMs;
+
+    @Autowired
+    public MailOutboxDispatcher(MailOutboxRepository mailOutboxRepository, MailTransport mailTransport,
+            MailMetrics mailMetrics, PlatformTransactionManager transactionManager,
+            @Value("${mail.outbox.workers:4}") int workerCount,
+            @Value("${mail.outbox.batch-size:50}") int batchSize,
+            @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${mail.outbox.initial-backoff-ms:2000}") long initialBackoffMs,
+            @Value("${mail.outbox.max-backoff-ms:600000}") long maxBackoffMs,
+            @Value("${mail.outbox.send-timeout-ms:30000}") long sendTimeoutMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailTransport = mailTransport;
+        this.mailMetrics = mailMetrics;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Long enough for a whole batch to time out, a worker's share of it one send after another
+        this.claimLeaseMs = sendTimeoutMs * ((batchSize + workerCount - 1) / workerCount + 1);
+
+        // Sending is mostly waiting on Gmail, so in virtual thread mode the workers don't need carriers of their own.
+        // The pool still bounds how many sends are in flight.
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("mail-outbox-", 1).factory()
+                : Thread.ofPlatform().name("mail-outbox-", 1).daemon(true).factory();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), threadFactory);
+        mailMetrics.registerWorkerQueue(() -> workers.getQueue().size());
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        // Nothing is claimed while the transport can't send, so another instance may take the messages
+        if (!mailTransport.isReady()) {
+            mailMetrics.setPendingMessages(mailOutboxRepository.countByStatus(MailOutboxStatus.PENDING));
+            return;
+        }
+        List<MailOutboxMessage> batch = claim();
+        mailMetrics.setPendingMessages(batch.size() < batchSize ? batch.size()
+                : batch.size() + mailOutboxRepository.countByStatus(MailOutboxStatus.PENDING));
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<MailOutboxMessage> submitted = new ArrayList<>(batch.size());
+        List<Future<?>> results = new ArrayList<>(batch.size());
+        for (MailOutboxMessage message : batch) {
+            try {
+                results.add(workers.submit(() -> {
+                    send(message);
+                    return null;
+                }));
+                submitted.add(message);
+            } catch (RejectedExecutionException e) {
+                // Pool is full, release the rest for the next poll
+                break;
+            }
+        }
+        List<MailOutboxMessage> updated = new ArrayList<>(batch);
+        for (MailOutboxMessage message : batch.subList(submitted.size(), batch.size())) {
+            message.setStatus(MailOutboxStatus.PENDING);
+            message.setNextAttemptAt(Instant.now());
+        }
+
+        for (int i = 0; i < submitted.size(); i++) {
+            MailOutboxMessage message = submitted.get(i);
+            try {
+                results.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                markSent(message);
+            } catch (ExecutionException e) {
+                markFailed(message, e.getCause());
+            } catch (TimeoutException e) {
+                results.get(i).cancel(true);
+                markFailed(message, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        mailOutboxRepository.saveAll(updated);
+    }
+
+    private List<MailOutboxMessage> claim() {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<MailOutboxMessage> due = mailOutboxRepository
+                    .findByStatusInAndNextAttemptAtLessThanEqualOrderByMessageIdAsc(CLAIMABLE, now,
+                            PageRequest.of(0, batchSize));
+            Instant leaseExpiry = now.plusMillis(claimLeaseMs);
+            for (MailOutboxMessage message : due) {
+                message.setStatus(MailOutboxStatus.SENDING);
+                message.setNextAttemptAt(leaseExpiry);
+            }
+            // Flushed on commit, the rows are managed until then
+            return due;
+        });
+    }
+
+    private void send(MailOutboxMessage message) throws Exception {
+        long start = System.nanoTime();
+        try {
+            mailTransport.send(message.getRecipient(), message.getSubject(), message.getContent());
+            mailMetrics.recordSend(System.nanoTime() - start, null);
+        } catch (Exception e) {
+            mailMetrics.recordSend(System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    private void markSent(MailOutboxMessage message) {
+        message.setStatus(MailOutboxStatus.SENT);
+        message.setSentAt(Instant.now());
+        message.setAttempts(message.getAttempts() + 1);
+        message.setLastError(null);
+    }
+
+    private void markFailed(MailOutboxMessage message, Throwable error) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(truncate(String.valueOf(error)));
+
+        if (attempts >= maxAttempts) {
+            message.setStatus(MailOutboxStatus.DEAD);
+            mailMetrics.recordDeadLetter();
+            new IllegalStateException("Giving up on " + message + " after " + attempts + " attempts", error)
+                    .printStackTrace();
+            return;
+        }
+        message.setStatus(MailOutboxStatus.PENDING);
+        message.setNextAttemptAt(Instant.now().plus(backoff(attempts)));
+    }
+
+    Duration backoff(int attempts) {
+        long delay = initialBackoffMs << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoffMs) {
+            delay = maxBackoffMs;
+        }
+        // Up to 20% jitter so a Gmail outage doesn't make every message retry at the same moment
+        long jitter = ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+        return Duration.ofMillis(delay + jitter);
+    }
+
+    private String truncate(String error) {
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+}
@@ -1,58 +1,46 @@
 package com.twitter_backend.services;
 
-import java.io.ByteArrayOutputStream;
-import java.util.Properties;
-
-import org.apache.tomcat.util.codec.binary.Base64;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.google.api.services.gmail.Gmail;
-import com.google.api.services.gmail.model.Message;
 import com.twitter_backend.exceptions.EmailFailedToSendException;
-
-import jakarta.mail.Session;
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
+import com.twitter_backend.models.MailOutboxMessage;
+import com.twitter_backend.repositories.MailOutboxRepository;
 
 @Service
 public class MailService {
 
-    private final Gmail gmail;
+    private final MailTransport mailTransport;
+    private final MailOutboxRepository mailOutboxRepository;
+    private final MailMetrics mailMetrics;
 
     @Autowired
-    public MailService(Gmail gmail) {
-        this.gmail = gmail;
+    public MailService(MailTransport mailTransport, MailOutboxRepository mailOutboxRepository,
+            MailMetrics mailMetrics) {
+        this.mailTransport = mailTransport;
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailMetrics = mailMetrics;
     }
 
+    // Sends right away on the calling thread. Request handlers should use queueGmail instead.
     public void sendGmail(String toAdress, String subject, String content) throws Exception {
-
-        Properties properties = new Properties();
-
-        Session session = Session.getDefaultInstance(properties, null);
-
-        MimeMessage email = new MimeMessage(session);
+        long start = System.nanoTime();
         try {
-            email.setFrom(new InternetAddress(System.getenv("MAIL_SERVICE_ADDRESS")));
-            email.addRecipient(jakarta.mail.Message.RecipientType.TO, new InternetAddress(toAdress));
-            email.setSubject(content);
-            email.setText(content);
-
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-
-            email.writeTo(buffer);
-            byte[] rawMessageBytes = buffer.toByteArray();
-            String encodedEmail = Base64.encodeBase64String(rawMessageBytes);
-
-            Message message = new Message();
-            message.setRaw(encodedEmail);
-            message = gmail.users().messages().send("me", message).execute();
+            mailTransport.send(toAdress, subject, content);
+            mailMetrics.recordSend(System.nanoTime() - start, null);
         } catch (Exception e) {
             e.printStackTrace();
-            throw new EmailFailedToSendException();
-
+            EmailFailedToSendException failure = new EmailFailedToSendException();
+            mailMetrics.recordSend(System.nanoTime() - start, failure);
+            throw failure;
         }
+    }
 
+    // Writes the email to the outbox in the caller's transaction, MailOutboxDispatcher sends it later.
+    @Transactional
+    public void queueGmail(String toAdress, String subject, String content) {
+        mailOutboxRepository.save(new MailOutboxMessage(toAdress, subject, content));
     }
 
 }
@@ -0,0 +1,14 @@
+package com.twitter_backend.services;
+
+// Sends a single, already composed email. Selected with mail.transport (gmail or memory).
+public interface MailTransport {
+
+    void send(String toAdress, String subject, String content) throws Exception;
+
+    // False while the transport can't send yet, e.g. credentials still loading. The outbox waits instead of
+    // spending attempts.
+    default boolean isReady() {
+        return true;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.twitter_backend.services;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token bucket per key, kept as a single AtomicLong holding the time the bucket is next full again
+// (generic cell rate algorithm), so acquiring is one read and one CAS with no locks.
+// A bucket whose time has passed is full, which is the same as not existing, so evictIdle() can drop it.
+public class RateLimiter {
+
+    private static final long FULL_TABLE_EVICTION_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastFullTableEviction;
+    private final LongSupplier nanoClock;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxKeys;
+
+    public RateLimiter(int permitsPerMinute, int burst, int maxKeys) {
+        this(System::nanoTime, permitsPerMinute, burst, maxKeys);
+    }
+
+    RateLimiter(LongSupplier nanoClock, int permitsPerMinute, int burst, int maxKeys) {
+        if (permitsPerMinute < 1 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerMinute and burst must be at least 1");
+        }
+        this.nanoClock = nanoClock;
+        this.intervalNanos = 60_000_000_000L / permitsPerMinute;
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.maxKeys = maxKeys;
+        this.lastFullTableEviction = new AtomicLong(nanoClock.getAsLong() - FULL_TABLE_EVICTION_INTERVAL_NANOS);
+    }
+
+    // Returns 0 when the request may go ahead, otherwise the nanoseconds until it would be allowed
+    public long tryAcquire(String key) {
+        return tryAcquire(key, 1);
+    }
+
+    // Takes several permits at once, e.g. one per row of a batch. At most burst permits fit in a bucket.
+    public long tryAcquire(String key, int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be at least 1");
+        }
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            // Full table: make room from idle buckets, and if there is none, reject rather than let
+            // keys nobody has seen through untracked
+            if (buckets.size() >= maxKeys && !evictForRoom(now)) {
+                return intervalNanos;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        long cost = intervalNanos * permits;
+        while (true) {
+            long stored = bucket.get();
+            long theoreticalArrival = Math.max(stored, now);
+            long allowedAt = theoreticalArrival + cost - intervalNanos - toleranceNanos;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (bucket.compareAndSet(stored, theoreticalArrival + cost)) {
+                return 0;
+            }
+        }
+    }
+
+    // At most one caller scans per second, the others see the table as still full
+    private boolean evictForRoom(long now) {
+        long last = lastFullTableEviction.get();
+        if (now - last >= FULL_TABLE_EVICTION_INTERVAL_NANOS && lastFullTableEviction.compareAndSet(last, now)) {
+            evictIdle();
+        }
+        return buckets.size() < maxKeys;
+    }
+
+    // A request racing with the removal may land on the dropped bucket, which at worst lets one extra through
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        buckets.values().removeIf(bucket -> bucket.get() <= now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.twitter_backend.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.twitter_backend.config.ReplicaRoutingDataSource;
+
+// Usernames written in the last app.datasource.read-your-writes-ms, their user row or their tweets. Reads of
+// those go to the primary, so a replica that hasn't caught up can't hand back (or put in the user cache) the
+// old state. Rows whose key tells when they were created, like tweets, are pinned by age instead.
+// Without replicas this only costs a small cache.
+@Component
+public class RecentWriteTracker {
+
+    private final Cache<String, Boolean> recentWrites;
+    private final Duration pin;
+
+    @Autowired
+    public RecentWriteTracker(@Value("${app.datasource.read-your-writes-ms:5000}") long pinMillis,
+            @Value("${app.datasource.read-your-writes-max-users:100000}") long maxUsers) {
+        this.pin = Duration.ofMillis(pinMillis);
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(pinMillis))
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    public void recordWrite(String username) {
+        if (username != null) {
+            recentWrites.put(username, Boolean.TRUE);
+        }
+    }
+
+    public <T> T read(String username, Supplier<T> reader) {
+        if (username != null && recentWrites.getIfPresent(username) != null) {
+            return ReplicaRoutingDataSource.onPrimary(reader);
+        }
+        return reader.get();
+    }
+
+    public <T> T readCreatedAt(Instant createdAt, Supplier<T> reader) {
+        if (createdAt.isAfter(Instant.now().minus(pin))) {
+            return ReplicaRoutingDataSource.onPrimary(reader);
+        }
+        return reader.get();
+    }
+
+}
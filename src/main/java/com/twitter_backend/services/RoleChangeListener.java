@@ -0,0 +1,31 @@
+package com.twitter_backend.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.twitter_backend.models.Role;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// JPA listener on Role, tells RoleRegistry to reload once the change has committed
+@Component
+public class RoleChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public RoleChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onRoleChanged(Role role) {
+        eventPublisher.publishEvent(new RoleChangedEvent(role.getRoleID(), role.getAuthority()));
+    }
+
+}
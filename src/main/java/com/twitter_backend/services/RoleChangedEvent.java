@@ -0,0 +1,4 @@
+package com.twitter_backend.services;
+
+public record RoleChangedEvent(Integer roleID, String authority) {
+}
@@ -0,0 +1,98 @@
+package com.twitter_backend.services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.twitter_backend.config.ReplicaRoutingDataSource;
+import com.twitter_backend.models.Role;
+import com.twitter_backend.repositories.RoleRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// All roles, loaded once at startup and reloaded after a Role is saved or removed.
+// Users store their roles as a bitmask where bit n is the role with role_id n, this class turns
+// the mask back into Role objects without touching the database.
+@Component
+public class RoleRegistry {
+
+    private static final int MAX_ROLE_ID = Long.SIZE - 1;
+
+    private record Snapshot(Map<String, Role> byAuthority, Map<Integer, Role> byId) {
+    }
+
+    // Static so ApplicationUser can resolve its mask, entities aren't Spring beans
+    private static volatile Snapshot current = new Snapshot(Map.of(), Map.of());
+
+    private final RoleRepository roleRepository;
+
+    @Autowired
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @PostConstruct
+    public synchronized void refresh() {
+        Map<String, Role> byAuthority = new HashMap<>();
+        Map<Integer, Role> byId = new HashMap<>();
+        // On the primary, refreshes follow role changes and would miss them on a lagging replica
+        for (Role role : ReplicaRoutingDataSource.onPrimary(() -> roleRepository.findAll())) {
+            if (role.getRoleID() == null || role.getRoleID() < 0 || role.getRoleID() > MAX_ROLE_ID) {
+                throw new IllegalStateException(role + " can't be stored in an authority mask, role_id must be 0-"
+                        + MAX_ROLE_ID);
+            }
+            byAuthority.put(role.getAuthority(), role);
+            byId.put(role.getRoleID(), role);
+        }
+        current = new Snapshot(Map.copyOf(byAuthority), Map.copyOf(byId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoleChanged(RoleChangedEvent event) {
+        refresh();
+    }
+
+    public Role getByAuthority(String authority) {
+        Role role = current.byAuthority().get(authority);
+        if (role == null) {
+            // Could have been added by another instance since the last refresh
+            refresh();
+            role = current.byAuthority().get(authority);
+        }
+        if (role == null) {
+            throw new NoSuchElementException("No role with authority " + authority);
+        }
+        return role;
+    }
+
+    public static Set<Role> rolesOf(long authorityMask) {
+        Map<Integer, Role> byId = current.byId();
+        Set<Role> roles = new LinkedHashSet<>();
+        long remaining = authorityMask;
+        while (remaining != 0) {
+            int roleID = Long.numberOfTrailingZeros(remaining);
+            Role role = byId.get(roleID);
+            if (role != null) {
+                roles.add(role);
+            }
+            remaining &= remaining - 1;
+        }
+        return roles;
+    }
+
+    public static long maskOf(Collection<Role> roles) {
+        long mask = 0L;
+        for (Role role : roles) {
+            mask |= 1L << role.getRoleID();
+        }
+        return mask;
+    }
+
+}
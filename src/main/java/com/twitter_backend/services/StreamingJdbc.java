@@ -0,0 +1,34 @@
+package com.twitter_backend.services;
+
+import java.sql.DatabaseMetaData;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+// JdbcTemplates for full-table reads that hand rows to a callback as they arrive instead of buffering them
+final class StreamingJdbc {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private StreamingJdbc() {
+    }
+
+    static JdbcTemplate templateFor(DataSource dataSource) {
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(fetchSize(dataSource));
+        return streaming;
+    }
+
+    // MySQL's driver only streams a result set row by row with this fetch size, otherwise it reads it all
+    private static int fetchSize(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "MySQL".equals(product) ? Integer.MIN_VALUE : FETCH_SIZE;
+        } catch (Exception e) {
+            return FETCH_SIZE;
+        }
+    }
+
+}
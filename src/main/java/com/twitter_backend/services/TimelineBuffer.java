@@ -0,0 +1,72 @@
+package com.twitter_backend.services;
+
+import java.util.Arrays;
+
+// A fixed-size ring of tweet ids for one home timeline. Once full, each new id overwrites the oldest
+// entry. Fan-out batches can add out of order and a rebuild can overlap them, so reads sort and drop
+// duplicates; with a few hundred entries that costs microseconds.
+final class TimelineBuffer {
+
+    private final long[] ids;
+    // Where the next id goes
+    private int next;
+    private int size;
+    private boolean seeded;
+
+    TimelineBuffer(int capacity) {
+        this.ids = new long[capacity];
+    }
+
+    synchronized void add(long id) {
+        ids[next] = id;
+        next = (next + 1) % ids.length;
+        size = Math.min(size + 1, ids.length);
+    }
+
+    // ids come from the database, newest first, and only fill the space that is still free, on the old
+    // side, so they are the first to be overwritten. Returns false when another caller seeded already.
+    synchronized boolean seed(long[] newestFirst) {
+        if (seeded) {
+            return false;
+        }
+        seeded = true;
+        for (long id : newestFirst) {
+            if (size == ids.length) {
+                break;
+            }
+            ids[Math.floorMod(next - size - 1, ids.length)] = id;
+            size++;
+        }
+        return true;
+    }
+
+    synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    // Until it is full the buffer has overwritten nothing, and the seed was every tweet there was
+    synchronized boolean isFull() {
+        return size == ids.length;
+    }
+
+    // Up to limit ids below beforeId, newest first, without duplicates
+    long[] newestFirst(long beforeId, int limit) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = ids[Math.floorMod(next - 1 - i, ids.length)];
+            }
+        }
+        Arrays.sort(sorted);
+        long[] page = new long[Math.min(limit, sorted.length)];
+        int count = 0;
+        for (int i = sorted.length - 1; i >= 0 && count < page.length; i--) {
+            if (sorted[i] < beforeId && (count == 0 || sorted[i] != page[count - 1])) {
+                page[count++] = sorted[i];
+            }
+        }
+        return count == page.length ? page : Arrays.copyOf(page, count);
+    }
+
+}
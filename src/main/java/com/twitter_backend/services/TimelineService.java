@@ -0,0 +1,230 @@
+package com.twitter_backend.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.twitter_backend.config.ReplicaRoutingDataSource;
+import com.twitter_backend.models.CursorPage;
+import com.twitter_backend.models.PageCursor;
+import com.twitter_backend.models.Tweet;
+import com.twitter_backend.models.idGenerators.SnowflakeIdFactory;
+import com.twitter_backend.repositories.FollowRepository;
+import com.twitter_backend.repositories.TweetRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PreDestroy;
+
+// Home timelines. Users who read their timeline recently get a TimelineBuffer of tweet ids, and a new tweet
+// is pushed into the buffers of its author's followers, in batches on a dedicated executor so posting only
+// pays for queueing. Authors with follower-threshold followers or more are never fanned out; their tweets
+// are read from the tweets table when a follower reads, and merged in.
+//
+// A buffer is created on the first read and seeded from the primary after it is already visible to
+// fan-out, so a tweet committed meanwhile shows up in one or the other. Buffers are evicted by size.
+// Until FollowGraph has loaded, fan-out is skipped and timelines are read from the database.
+//
+// Buffers are local to an instance, and fan-out and invalidate only reach this instance's buffers. A tweet
+// posted or a follow made through another instance is missing from a buffer here until it is rebuilt,
+// which happens at the latest max-staleness-ms after it was seeded.
+@Service
+public class TimelineService {
+
+    static final int MAX_PAGE_SIZE = 100;
+    private static final String TIMELINE_LISTING = "timeline";
+    private static final int AUTHORS_PER_QUERY = 1000;
+
+    private final FollowGraph followGraph;
+    private final FollowRepository followRepository;
+    private final TweetRepository tweetRepository;
+    private final RecentWriteTracker recentWriteTracker;
+    private final Cache<UUID, TimelineBuffer> timelines;
+    private final ThreadPoolExecutor fanOutExecutor;
+    private final Timer fanOutTimer;
+    private final int capacity;
+    private final int followerThreshold;
+    private final int batchSize;
+
+    @Autowired
+    public TimelineService(FollowGraph followGraph, FollowRepository followRepository,
+            TweetRepository tweetRepository, RecentWriteTracker recentWriteTracker, MeterRegistry meterRegistry,
+            @Value("${app.timeline.capacity:800}") int capacity,
+            @Value("${app.timeline.max-cached:50000}") long maxCached,
+            @Value("${app.timeline.max-staleness-ms:60000}") long maxStalenessMs,
+            @Value("${app.timeline.follower-threshold:10000}") int followerThreshold,
+            @Value("${app.timeline.fanout-batch-size:1000}") int batchSize,
+            @Value("${app.timeline.fanout-threads:2}") int threads,
+            @Value("${app.timeline.fanout-queue-capacity:10000}") int queueCapacity) {
+        this.followGraph = followGraph;
+        this.followRepository = followRepository;
+        this.tweetRepository = tweetRepository;
+        this.recentWriteTracker = recentWriteTracker;
+        this.capacity = capacity;
+        this.followerThreshold = followerThreshold;
+        this.batchSize = batchSize;
+        this.timelines = Caffeine.newBuilder().maximumSize(maxCached)
+                .expireAfterWrite(Duration.ofMillis(maxStalenessMs)).recordStats().build();
+        // A full queue makes the posting thread run the batch itself, which slows posting down instead of
+        // dropping tweets
+        this.fanOutExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("timeline-fanout-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.fanOutTimer = meterRegistry.timer("timeline.fanout.batch");
+        meterRegistry.gauge("timeline.fanout.queue", fanOutExecutor, executor -> executor.getQueue().size());
+        CaffeineCacheMetrics.monitor(meterRegistry, timelines, "timelines");
+    }
+
+    // Call once the tweet has committed. The future completes when every batch has run.
+    public CompletableFuture<Void> fanOut(Tweet tweet) {
+        long tweetId = tweet.getTweetId();
+        UUID authorId = tweet.getAuthorId();
+        addIfActive(authorId, tweetId);
+
+        int author = followGraph.isReady() ? followGraph.denseIdOf(authorId) : -1;
+        if (author < 0 || followGraph.followerCount(authorId) >= followerThreshold) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int[] followers = followGraph.followerIdsOf(author);
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        for (int from = 0; from < followers.length; from += batchSize) {
+            int start = from;
+            int end = Math.min(followers.length, from + batchSize);
+            batches.add(CompletableFuture.runAsync(() -> fanOutTimer.record(() -> {
+                for (int i = start; i < end; i++) {
+                    addIfActive(followGraph.userIdOf(followers[i]), tweetId);
+                }
+            }), fanOutExecutor));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]));
+    }
+
+    // Newest first. The cursor holds the last tweet id of the previous page.
+    @Transactional(readOnly = true)
+    public CursorPage<Tweet> getHomeTimeline(UUID userId, String cursor, int limit) {
+        Long beforeId = PageCursor.decodeLong(TIMELINE_LISTING, cursor);
+        long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        // One more than the page, to tell whether there is a next one
+        int fetchSize = pageSize + 1;
+
+        if (!followGraph.isReady()) {
+            List<UUID> authors = new ArrayList<>(followRepository.findFolloweeIds(userId));
+            authors.add(userId);
+            return pageOf(recentTweets(authors, before, fetchSize), pageSize);
+        }
+
+        List<UUID> pushed = new ArrayList<>();
+        List<UUID> pulled = new ArrayList<>();
+        pushed.add(userId);
+        int user = followGraph.denseIdOf(userId);
+        if (user >= 0) {
+            for (int followee : followGraph.followingIdsOf(user)) {
+                UUID followeeId = followGraph.userIdOf(followee);
+                (followGraph.followerCount(followeeId) >= followerThreshold ? pulled : pushed).add(followeeId);
+            }
+        }
+
+        TimelineBuffer buffer = timelines.get(userId, id -> new TimelineBuffer(capacity));
+        if (!buffer.isSeeded()) {
+            // A replica could still be missing a tweet fanned out before the buffer existed, e.g. the user's own.
+            // This is the transaction's first statement, so the rest of it stays on the primary too.
+            buffer.seed(ReplicaRoutingDataSource.onPrimary(() -> recentTweets(pushed, Long.MAX_VALUE, capacity))
+                    .stream().mapToLong(Tweet::getTweetId).toArray());
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (long id : buffer.newestFirst(before, fetchSize)) {
+            ids.add(id);
+        }
+        // Tweets posted within the read-your-writes window may not be on a replica yet, the reader's own included
+        List<Tweet> candidates = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            candidates.addAll(recentWriteTracker.readCreatedAt(SnowflakeIdFactory.timestampOf(ids.get(0)),
+                    () -> tweetRepository.findAllById(ids)));
+        }
+        if (!pulled.isEmpty()) {
+            candidates.addAll(recentTweets(pulled, before, fetchSize));
+        }
+        candidates.sort(Comparator.comparing(Tweet::getTweetId).reversed());
+
+        // Buffers keep tweets from accounts unfollowed since, those are dropped here
+        List<Tweet> page = new ArrayList<>(fetchSize);
+        boolean dropped = false;
+        long previous = 0;
+        for (Tweet tweet : candidates) {
+            if (page.size() == fetchSize) {
+                break;
+            }
+            if (tweet.getTweetId() != previous) {
+                if (tweet.getAuthorId().equals(userId) || followGraph.isFollowing(userId, tweet.getAuthorId())) {
+                    page.add(tweet);
+                } else {
+                    dropped = true;
+                }
+            }
+            previous = tweet.getTweetId();
+        }
+        // A short page is only the end of the timeline if the buffer still holds everything and nothing was
+        // dropped. Otherwise older tweets may be left in the database, read this page from there.
+        if (page.size() < fetchSize && (buffer.isFull() || dropped)) {
+            List<UUID> authors = new ArrayList<>(pushed);
+            authors.addAll(pulled);
+            return pageOf(recentTweets(authors, before, fetchSize), pageSize);
+        }
+        return pageOf(page, pageSize);
+    }
+
+    private static CursorPage<Tweet> pageOf(List<Tweet> fetched, int pageSize) {
+        return CursorPage.of(fetched, pageSize, tweet -> PageCursor.encode(TIMELINE_LISTING, tweet.getTweetId()));
+    }
+
+    // The buffer is rebuilt on the next read, e.g. so a new followee's earlier tweets show up
+    public void invalidate(UUID userId) {
+        timelines.invalidate(userId);
+    }
+
+    private void addIfActive(UUID userId, long tweetId) {
+        TimelineBuffer buffer = userId != null ? timelines.getIfPresent(userId) : null;
+        if (buffer != null) {
+            buffer.add(tweetId);
+        }
+    }
+
+    // Newest first across all authors, one query per AUTHORS_PER_QUERY authors
+    private List<Tweet> recentTweets(List<UUID> authors, long beforeId, int limit) {
+        List<Tweet> tweets = new ArrayList<>();
+        for (int from = 0; from < authors.size(); from += AUTHORS_PER_QUERY) {
+            tweets.addAll(tweetRepository.findByAuthorIdInAndTweetIdLessThanOrderByTweetIdDesc(
+                    authors.subList(from, Math.min(authors.size(), from + AUTHORS_PER_QUERY)), beforeId,
+                    Limit.of(limit)));
+        }
+        if (authors.size() > AUTHORS_PER_QUERY) {
+            tweets.sort(Comparator.comparing(Tweet::getTweetId).reversed());
+        }
+        return tweets.size() > limit ? new ArrayList<>(tweets.subList(0, limit)) : tweets;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.shutdownNow();
+    }
+
+}
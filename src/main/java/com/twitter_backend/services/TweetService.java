@@ -0,0 +1,79 @@
+package com.twitter_backend.services;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.twitter_backend.exceptions.InvalidTweetException;
+import com.twitter_backend.exceptions.TweetDoesntExistException;
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.CursorPage;
+import com.twitter_backend.models.PageCursor;
+import com.twitter_backend.models.Tweet;
+import com.twitter_backend.models.idGenerators.SnowflakeIdFactory;
+import com.twitter_backend.repositories.TweetRepository;
+
+@Service
+public class TweetService {
+
+    static final int MAX_PAGE_SIZE = 100;
+    private static final String TWEETS_LISTING = "tweets";
+
+    private final TweetRepository tweetRepository;
+    private final UserService userService;
+    private final SnowflakeIdFactory snowflakeIdFactory;
+    private final TimelineService timelineService;
+    private final RecentWriteTracker recentWriteTracker;
+
+    @Autowired
+    public TweetService(TweetRepository tweetRepository, UserService userService,
+            SnowflakeIdFactory snowflakeIdFactory, TimelineService timelineService,
+            RecentWriteTracker recentWriteTracker) {
+        this.tweetRepository = tweetRepository;
+        this.userService = userService;
+        this.snowflakeIdFactory = snowflakeIdFactory;
+        this.timelineService = timelineService;
+        this.recentWriteTracker = recentWriteTracker;
+    }
+
+    public Tweet postTweet(String username, String content) {
+        // Counted in code points so an emoji counts once
+        if (content == null || content.isBlank() || content.codePointCount(0, content.length()) > Tweet.MAX_LENGTH) {
+            throw new InvalidTweetException();
+        }
+        ApplicationUser author = userService.getUserByUsername(username);
+        Tweet tweet = tweetRepository.save(new Tweet(snowflakeIdFactory.next(), author.getUserId(), content));
+        recentWriteTracker.recordWrite(author.getUsername());
+        timelineService.fanOut(tweet);
+        return tweet;
+    }
+
+    // A tweet younger than the replica lag allowance is read from the primary, found by its id's timestamp
+    @Transactional(readOnly = true)
+    public Tweet getTweet(long tweetId) {
+        return recentWriteTracker.readCreatedAt(SnowflakeIdFactory.timestampOf(tweetId),
+                () -> tweetRepository.findById(tweetId)).orElseThrow(TweetDoesntExistException::new);
+    }
+
+    // Newest first, a keyset page on (author_id, tweet_id)
+    @Transactional(readOnly = true)
+    public CursorPage<Tweet> getTweetsByUser(String username, String cursor, int limit) {
+        Long beforeId = PageCursor.decodeLong(TWEETS_LISTING, cursor);
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        ApplicationUser author = userService.getUserByUsername(username);
+        // Pinned to the primary for a while after the author posts, so their new tweet is on the page
+        List<Tweet> fetched = recentWriteTracker.read(username,
+                () -> tweetRepository.findByAuthorIdAndTweetIdLessThanOrderByTweetIdDesc(author.getUserId(),
+                        beforeId != null ? beforeId : Long.MAX_VALUE, Limit.of(pageSize + 1)));
+        return CursorPage.of(fetched, pageSize, tweet -> PageCursor.encode(TWEETS_LISTING, tweet.getTweetId()));
+    }
+
+    // The user's own tweets and those of everyone they follow, newest first
+    public CursorPage<Tweet> getHomeTimeline(String username, String cursor, int limit) {
+        return timelineService.getHomeTimeline(userService.getUserByUsername(username).getUserId(), cursor, limit);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.twitter_backend.services;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.twitter_backend.models.ApplicationUser;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+// Read-through cache of users by username. Caffeine evicts by size (W-TinyLFU) and by age.
+// A load holds the lock for its key, so an invalidate that arrives during a load waits for it and then
+// removes the result. That's why writers must invalidate after their transaction has committed.
+@Component
+public class UserCache {
+
+    private final Cache<String, ApplicationUser> cache;
+
+    @Autowired
+    public UserCache(MeterRegistry meterRegistry,
+            @Value("${app.user-cache.maximum-size:10000}") long maximumSize,
+            @Value("${app.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    // Returns null when the loader returns null, misses aren't cached
+    public ApplicationUser get(String username, Function<String, ApplicationUser> loader) {
+        if (username == null) {
+            return null;
+        }
+        return cache.get(username, loader);
+    }
+
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+}
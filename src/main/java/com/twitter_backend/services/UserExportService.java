@@ -0,0 +1,183 @@
+package com.twitter_backend.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_backend.models.UserExportFormat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Writes the users table as NDJSON or CSV straight from a forward-only JDBC cursor. Each row is written as
+// soon as it is read and nothing is mapped to entities, so memory use doesn't grow with the table.
+// Passwords and authorities are never exported.
+@Service
+public class UserExportService {
+
+    private static final String COLUMNS = "user_id, username, first_name, last_name, email, phone_number, "
+            + "date_of_birth, enabled, created_at";
+    private static final String[] FIELDS = { "userId", "username", "firstName", "lastName", "email", "phoneNumber",
+            "dateOfBirth", "enabled", "createdAt" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public UserExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Users created in [from, to), either bound may be null. Returns the number of rows written.
+    // Read-only so the cursor is held on a replica when there are any.
+    @Transactional(readOnly = true)
+    public long export(UserExportFormat format, Instant from, Instant to, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM users");
+        List<Object> args = new ArrayList<>(2);
+        if (from != null) {
+            sql.append(args.isEmpty() ? " WHERE" : " AND").append(" created_at >= ?");
+            args.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sql.append(args.isEmpty() ? " WHERE" : " AND").append(" created_at < ?");
+            args.add(Timestamp.from(to));
+        }
+
+        RowWriter writer = format == UserExportFormat.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        long[] rows = { 0 };
+        try {
+            StreamingJdbc.templateFor(jdbcTemplate.getDataSource()).query(sql.toString(), resultSet -> {
+                try {
+                    writer.write(valuesOf(resultSet));
+                    rows[0]++;
+                } catch (IOException e) {
+                    // Usually the client went away, which has to stop the query too
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+
+        meterRegistry.counter("user.export.rows", "format", format.getExtension()).increment(rows[0]);
+        return rows[0];
+    }
+
+    private static Object[] valuesOf(ResultSet resultSet) throws SQLException {
+        byte[] id = resultSet.getBytes(1);
+        Date dateOfBirth = resultSet.getDate(7);
+        Timestamp createdAt = resultSet.getTimestamp(9);
+        return new Object[] {
+                id != null ? uuidOf(id) : null,
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                resultSet.getString(5),
+                resultSet.getString(6),
+                dateOfBirth != null ? dateOfBirth.toLocalDate().toString() : null,
+                resultSet.getBoolean(8),
+                createdAt != null ? createdAt.toInstant().toString() : null };
+    }
+
+    private static String uuidOf(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+    private interface RowWriter {
+        void write(Object[] values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (values[i] instanceof Boolean flag) {
+                    generator.writeBooleanField(FIELDS[i], flag);
+                } else {
+                    generator.writeStringField(FIELDS[i], (String) values[i]);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(String.join(",", FIELDS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writer.write(escape(values[i].toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    // RFC 4180: fields with a separator, quote or line break are quoted, quotes inside are doubled
+    static String escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+}
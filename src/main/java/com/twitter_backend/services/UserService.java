@@ -1,38 +1,74 @@
 package com.twitter_backend.services;
 
 import java.net.Authenticator;
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.twitter_backend.config.ReplicaRoutingDataSource;
 import com.twitter_backend.exceptions.EmailAlreadyExistsException;
 import com.twitter_backend.exceptions.EmailFailedToSendException;
+import com.twitter_backend.exceptions.IncorrectPasswordException;
 import com.twitter_backend.exceptions.IncorrectVerificationCodeException;
+import com.twitter_backend.exceptions.InvalidUserUpdateException;
+import com.twitter_backend.exceptions.TooManyVerificationAttemptsException;
 import com.twitter_backend.exceptions.UserDoesntExistException;
+import com.twitter_backend.exceptions.UsernameAllocationFailedException;
 import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.CursorPage;
+import com.twitter_backend.models.PageCursor;
 import com.twitter_backend.models.RegistrationObject;
-import com.twitter_backend.models.Role;
-import com.twitter_backend.repositories.RoleRepository;
+import com.twitter_backend.models.UserProfile;
+import com.twitter_backend.models.UserSummary;
 import com.twitter_backend.repositories.UserRepository;
 
+import io.micrometer.core.annotation.Timed;
+
 @Service
+@Timed(value = "user.service", histogram = true)
 public class UserService {
 
+    private static final int MAX_REGISTRATION_ATTEMPTS = 3;
+    static final int MAX_PAGE_SIZE = 100;
+    private static final String USERS_LISTING = "users";
+
+    // Fields a client may change through patchUser. Password has its own path through the encoder.
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("firstName", "lastName", "email", "phoneNumber",
+            "dateOfBirth");
+
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final MailService mailService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UsernameAllocator usernameAllocator;
+    private final UserCache userCache;
+    private final VerificationCodeStore verificationCodeStore;
+    private final RecentWriteTracker recentWriteTracker;
+    private final AvailabilityService availabilityService;
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, MailService mailService,
-            PasswordEncoder passwordEncoder) {
-        this.roleRepository = roleRepository;
+    public UserService(UserRepository userRepository, RoleRegistry roleRegistry, MailService mailService,
+            PasswordHashingService passwordHashingService, UsernameAllocator usernameAllocator, UserCache userCache,
+            VerificationCodeStore verificationCodeStore, RecentWriteTracker recentWriteTracker,
+            AvailabilityService availabilityService) {
+        this.roleRegistry = roleRegistry;
         this.userRepository = userRepository;
         this.mailService = mailService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.usernameAllocator = usernameAllocator;
+        this.userCache = userCache;
+        this.verificationCodeStore = verificationCodeStore;
+        this.recentWriteTracker = recentWriteTracker;
+        this.availabilityService = availabilityService;
     }
 
     public ApplicationUser registerUser(RegistrationObject registrationObject) {
@@ -44,40 +80,65 @@ public class UserService {
         user.setEmail(registrationObject.getEmail());
         user.setDateOfBirth(registrationObject.getDateOfBirth());
 
-        String name = user.getFirstName() + user.getLastName();
-        boolean nametaken = true;
-        String tempName = "";
-        while (nametaken) {
-            tempName = generatedUsername(name);
-            if (userRepository.findByUsername(tempName).isEmpty()) {
-                nametaken = false;
-            }
+        // Most duplicates stop here, without an insert to roll back
+        if (user.getEmail() != null && !availabilityService.isEmailAvailable(user.getEmail())) {
+            throw new EmailAlreadyExistsException();
         }
 
-        Set<Role> roles = user.getAuthorities();
-        roles.add(roleRepository.findByAuthority("USER").get());
-        user.setAuthorities(roles);
-
-        user.setUsername(tempName);
+        String name = user.getFirstName() + user.getLastName();
 
-        try {
-            return userRepository.save(user);
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new EmailAlreadyExistsException();
+        user.setAuthorities(Set.of(roleRegistry.getByAuthority("USER")));
+
+        for (int attempt = 1;; attempt++) {
+            user.setUsername(usernameAllocator.allocate(name));
+            try {
+                ApplicationUser saved = userRepository.save(user);
+                recentWriteTracker.recordWrite(saved.getUsername());
+                availabilityService.recordUser(saved.getEmail(), saved.getUsername());
+                return saved;
+            } catch (DataIntegrityViolationException e) {
+                // Either the email is taken or another signup grabbed the same username first.
+                // Asked of the primary, a replica may not have the conflicting row yet.
+                if (user.getEmail() != null
+                        && ReplicaRoutingDataSource.onPrimary(() -> userRepository.existsByEmail(user.getEmail()))) {
+                    throw new EmailAlreadyExistsException();
+                }
+                if (attempt >= MAX_REGISTRATION_ATTEMPTS) {
+                    e.printStackTrace();
+                    throw new UsernameAllocationFailedException();
+                }
+                user.setUserId(null);
+            } catch (Exception e) {
+                e.printStackTrace();
+                throw new EmailAlreadyExistsException();
+            }
         }
 
     }
 
-    private String generatedUsername(String name) {
-
-        long generatedNumber = (long) Math.floor(Math.random() * 1_000_000_000);
-        return name + generatedNumber;
+    @Transactional(readOnly = true)
+    public ApplicationUser getUserByUsername(String username) {
+        ApplicationUser user = userCache.get(username,
+                name -> recentWriteTracker.read(name, () -> userRepository.findByUsername(name).orElse(null)));
+        if (user == null) {
+            throw new UserDoesntExistException();
+        }
+        return user;
+    }
 
+    public UserProfile getProfile(String username) {
+        return recentWriteTracker.read(username, () -> userRepository.findProfileByUsername(username))
+                .orElseThrow(UserDoesntExistException::new);
     }
 
-    public ApplicationUser getUserByUsername(String username) {
-        return userRepository.findByUsername(username).orElseThrow(UserDoesntExistException::new);
+    // Ordered by username
+    @Transactional(readOnly = true)
+    public CursorPage<UserProfile> listUsers(String cursor, int limit) {
+        String after = PageCursor.decode(USERS_LISTING, cursor);
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<UserProfile> fetched = userRepository.findProfilesByUsernameGreaterThanOrderByUsernameAsc(
+                after != null ? after : "", Limit.of(pageSize + 1));
+        return CursorPage.of(fetched, pageSize, profile -> PageCursor.encode(USERS_LISTING, profile.username()));
     }
 
     public ApplicationUser updateUser(ApplicationUser user) {
@@ -86,51 +147,109 @@ public class UserService {
         } catch (Exception e) {
             e.printStackTrace();
             throw new EmailAlreadyExistsException();
+        } finally {
+            // Also on failure, the caller may have changed the cached instance before saving
+            recentWriteTracker.recordWrite(user.getUsername());
+            userCache.invalidate(user.getUsername());
         }
     }
 
+    public UserSummary patchUser(String username, Map<String, String> changes) {
+        Map<String, Object> typedChanges = new HashMap<>();
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (!PATCHABLE_FIELDS.contains(change.getKey())) {
+                throw new InvalidUserUpdateException(change.getKey());
+            }
+            if (change.getKey().equals("dateOfBirth") && change.getValue() != null) {
+                try {
+                    typedChanges.put("dateOfBirth", Date.valueOf(change.getValue()));
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidUserUpdateException("dateOfBirth");
+                }
+            } else {
+                typedChanges.put(change.getKey(), change.getValue());
+            }
+        }
+        if (typedChanges.isEmpty()) {
+            throw new InvalidUserUpdateException("(none)");
+        }
+        return updateFields(username, typedChanges);
+    }
+
+    private UserSummary updateFields(String username, Map<String, Object> changes) {
+        Optional<UserSummary> updated;
+        try {
+            updated = userRepository.updateFieldsByUsername(username, changes);
+        } catch (DataIntegrityViolationException e) {
+            throw new EmailAlreadyExistsException();
+        } finally {
+            recentWriteTracker.recordWrite(username);
+            userCache.invalidate(username);
+        }
+
+        if (updated.isEmpty()) {
+            throw new UserDoesntExistException();
+        }
+        if (changes.get("email") instanceof String email) {
+            availabilityService.recordUser(email, null);
+        }
+        return updated.get();
+    }
+
+    // The code lives in VerificationCodeStore, the users table is only written once the email is verified
     public void generateUserVerification(String username) throws Exception {
-        ApplicationUser user = userRepository.findByUsername(username).orElseThrow(UserDoesntExistException::new);
+        UserSummary user = summaryOf(username).orElseThrow(UserDoesntExistException::new);
 
+        long code = verificationCodeStore.issue(username);
         try {
-            user.setVerification(generateVerificationNumber());
-            mailService.sendGmail(user.getEmail(), "Your verification code",
-                    "This is your verification code: " + user.getVerification());
-            userRepository.save(user);
+            mailService.queueGmail(user.email(), "Your verification code",
+                    "This is your verification code: " + code);
         } catch (Exception e) {
             e.printStackTrace();
+            verificationCodeStore.remove(username);
             throw new EmailFailedToSendException();
         }
 
     }
 
-    private Long generateVerificationNumber() {
-        return (long) Math.floor(Math.random() * 1_000_000_000);
+    public UserSummary verifyEmail(String username, Long verificationCode) throws Exception {
+        if (username == null || verificationCode == null) {
+            throw new IncorrectVerificationCodeException();
+        }
+        switch (verificationCodeStore.verify(username, verificationCode)) {
+            case MATCH:
+                return updateFields(username, Map.of("enabled", true));
+            case TOO_MANY_ATTEMPTS:
+                throw new TooManyVerificationAttemptsException();
+            default:
+                throw new IncorrectVerificationCodeException();
+        }
+    }
 
+    public UserSummary setPassword(String username, String password) {
+        String encodedPassword = passwordHashingService.encode(password);
+        return updateFields(username, Map.of("password", encodedPassword));
     }
 
-    public ApplicationUser verifyEmail(String username, Long verificationCode) throws Exception {
-        try {
-            ApplicationUser user = userRepository.findByUsername(username).orElseThrow(UserDoesntExistException::new);
-            if (verificationCode.equals(user.getVerification())) {
-                user.setEnabled(true);
-                user.setVerification(null);
-                return userRepository.save(user);
-            } else {
-                throw new IncorrectVerificationCodeException();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new IncorrectVerificationCodeException();
+    // The hash is read with a query rather than through the second-level cache, whose copy on this instance
+    // can predate a password change made through another
+    public UserSummary login(String username, String password) {
+        String hash = recentWriteTracker.read(username, () -> userRepository.findPasswordByUsername(username))
+                .orElseThrow(IncorrectPasswordException::new);
+        if (password == null || !passwordHashingService.matches(password, hash)) {
+            throw new IncorrectPasswordException();
         }
-    }
 
-    public ApplicationUser setPassword(String username, String password) {
-        ApplicationUser user = userRepository.findByUsername(username).orElseThrow(UserDoesntExistException::new);
-        String encodedPassword = passwordEncoder.encode(password);
-        user.setPassword(encodedPassword);
+        // The cost factor was raised since this hash was made, store a new one while we have the password
+        if (passwordHashingService.upgradeEncoding(hash)) {
+            return setPassword(username, password);
+        }
+        return summaryOf(username).orElseThrow(IncorrectPasswordException::new);
+    }
 
-        return userRepository.save(user);
+    // UserRepository's queries are read-only, so this goes to a replica unless the user was just written
+    private Optional<UserSummary> summaryOf(String username) {
+        return recentWriteTracker.read(username, () -> userRepository.findSummaryByUsername(username));
     }
 
 }
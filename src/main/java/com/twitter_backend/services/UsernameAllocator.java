@@ -0,0 +1,138 @@
+package com.twitter_backend.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.twitter_backend.config.ReplicaRoutingDataSource;
+import com.twitter_backend.exceptions.UsernameAllocationFailedException;
+import com.twitter_backend.repositories.UserRepository;
+
+// Hands out free usernames like "TheDudeDudeson123456789". Each base name gets a counter that starts at
+// a random suffix and is advanced a whole batch at a time, so one IN query usually settles a signup and
+// concurrent signups on this node never test the same candidates. When the availability filter already
+// knows a candidate is free, no query is needed at all.
+@Component
+public class UsernameAllocator {
+
+    static final long SUFFIX_RANGE = 1_000_000_000L;
+    private static final int MAX_ROUNDS = 5;
+    private static final int MAX_TRACKED_NAMES = 100_000;
+    private static final int QUERY_CHUNK = 1000;
+
+    private final UserRepository userRepository;
+    private final AvailabilityService availabilityService;
+    private final int batchSize;
+    private final ConcurrentHashMap<String, AtomicLong> suffixCounters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UsernameAllocator(UserRepository userRepository, AvailabilityService availabilityService,
+            @Value("${app.username.batch-size:8}") int batchSize) {
+        this.userRepository = userRepository;
+        this.availabilityService = availabilityService;
+        this.batchSize = batchSize;
+    }
+
+    public String allocate(String baseName) {
+        return allocateAll(List.of(baseName)).get(0);
+    }
+
+    // One username per base name, in the same order. The candidates of every row the filter can't settle
+    // are checked together, so a round costs one IN query per QUERY_CHUNK candidates instead of one per row.
+    public List<String> allocateAll(List<String> baseNames) {
+        String[] allocated = new String[baseNames.size()];
+        List<Integer> pending = new ArrayList<>(baseNames.size());
+        for (int row = 0; row < baseNames.size(); row++) {
+            pending.add(row);
+        }
+
+        for (int round = 0; round < MAX_ROUNDS && !pending.isEmpty(); round++) {
+            Map<Integer, List<String>> undecided = new LinkedHashMap<>();
+            List<String> toQuery = new ArrayList<>();
+            for (int row : pending) {
+                List<String> candidates = nextCandidates(baseNames.get(row));
+                String free = firstDefinitelyFree(candidates);
+                if (free != null) {
+                    allocated[row] = free;
+                } else {
+                    undecided.put(row, candidates);
+                    toQuery.addAll(candidates);
+                }
+            }
+
+            Set<String> taken = findTaken(toQuery);
+            pending = new ArrayList<>();
+            for (Map.Entry<Integer, List<String>> row : undecided.entrySet()) {
+                for (String candidate : row.getValue()) {
+                    if (!taken.contains(candidate)) {
+                        allocated[row.getKey()] = candidate;
+                        break;
+                    }
+                }
+                if (allocated[row.getKey()] == null) {
+                    // The whole batch was taken, so this part of the suffix range is crowded. Jump elsewhere.
+                    reseed(baseNames.get(row.getKey()));
+                    pending.add(row.getKey());
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            throw new UsernameAllocationFailedException();
+        }
+        return Arrays.asList(allocated);
+    }
+
+    private String firstDefinitelyFree(List<String> candidates) {
+        for (String candidate : candidates) {
+            if (availabilityService.isUsernameDefinitelyFree(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private Set<String> findTaken(List<String> candidates) {
+        Set<String> taken = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += QUERY_CHUNK) {
+            List<String> chunk = candidates.subList(from, Math.min(candidates.size(), from + QUERY_CHUNK));
+            // On the primary: a replica behind on a registration would offer its username again
+            taken.addAll(ReplicaRoutingDataSource.onPrimary(() -> userRepository.findExistingUsernames(chunk)));
+        }
+        return taken;
+    }
+
+    List<String> nextCandidates(String baseName) {
+        if (suffixCounters.size() > MAX_TRACKED_NAMES) {
+            suffixCounters.clear();
+        }
+        AtomicLong counter = suffixCounters.computeIfAbsent(baseName, name -> new AtomicLong(randomSuffix()));
+        long start = counter.getAndAdd(batchSize);
+
+        List<String> candidates = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            candidates.add(baseName + Math.floorMod(start + i, SUFFIX_RANGE));
+        }
+        return candidates;
+    }
+
+    private void reseed(String baseName) {
+        suffixCounters.put(baseName, new AtomicLong(randomSuffix()));
+    }
+
+    private static long randomSuffix() {
+        return ThreadLocalRandom.current().nextLong(SUFFIX_RANGE);
+    }
+
+}
@@ -0,0 +1,252 @@
+package com.twitter_backend.services;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Pending email verification codes, kept out of the users table. Codes expire after a TTL and allow a limited
+// number of wrong guesses. Only a SHA-256 digest of each code is kept, compared in constant time.
+// The map is split into lock stripes by username. With app.verification.snapshot-path set, pending
+// codes are written to that file on shutdown and read back on startup.
+@Component
+public class VerificationCodeStore {
+
+    public enum Result {
+        MATCH,
+        MISMATCH,
+        MISSING_OR_EXPIRED,
+        TOO_MANY_ATTEMPTS
+    }
+
+    private static final class Entry {
+        private final byte[] digest;
+        private final long expiresAt;
+        private int failedAttempts;
+
+        private Entry(byte[] digest, long expiresAt, int failedAttempts) {
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+            this.failedAttempts = failedAttempts;
+        }
+    }
+
+    private static final int STRIPES = 64;
+    private static final long CODE_RANGE = 1_000_000_000L;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final Map<String, Entry>[] stripes;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final LongSupplier clock;
+    private final long ttlMillis;
+    private final int maxAttempts;
+    private final String snapshotPath;
+
+    @Autowired
+    public VerificationCodeStore(@Value("${app.verification.ttl-minutes:15}") long ttlMinutes,
+            @Value("${app.verification.max-attempts:5}") int maxAttempts,
+            @Value("${app.verification.snapshot-path:}") String snapshotPath) {
+        this(System::currentTimeMillis, ttlMinutes * 60_000, maxAttempts, snapshotPath);
+    }
+
+    @SuppressWarnings("unchecked")
+    VerificationCodeStore(LongSupplier clock, long ttlMillis, int maxAttempts, String snapshotPath) {
+        this.clock = clock;
+        this.ttlMillis = ttlMillis;
+        this.maxAttempts = maxAttempts;
+        this.snapshotPath = snapshotPath;
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+            stripes[i] = new HashMap<>();
+        }
+    }
+
+    // Creates a new code for the user, replacing any earlier one and its attempt count
+    public long issue(String username) {
+        long code = secureRandom.nextLong(CODE_RANGE);
+        int stripe = stripeOf(username);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].put(username, new Entry(digest(code), clock.getAsLong() + ttlMillis, 0));
+        } finally {
+            locks[stripe].unlock();
+        }
+        return code;
+    }
+
+    public Result verify(String username, long code) {
+        byte[] attempt = digest(code);
+        int stripe = stripeOf(username);
+        locks[stripe].lock();
+        try {
+            Entry entry = stripes[stripe].get(username);
+            if (entry == null || entry.expiresAt <= clock.getAsLong()) {
+                stripes[stripe].remove(username);
+                return Result.MISSING_OR_EXPIRED;
+            }
+            if (entry.failedAttempts >= maxAttempts) {
+                return Result.TOO_MANY_ATTEMPTS;
+            }
+            if (MessageDigest.isEqual(entry.digest, attempt)) {
+                stripes[stripe].remove(username);
+                return Result.MATCH;
+            }
+            entry.failedAttempts++;
+            return entry.failedAttempts >= maxAttempts ? Result.TOO_MANY_ATTEMPTS : Result.MISMATCH;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    public void remove(String username) {
+        int stripe = stripeOf(username);
+        locks[stripe].lock();
+        try {
+            stripes[stripe].remove(username);
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i].lock();
+            try {
+                size += stripes[i].size();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${app.verification.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = clock.getAsLong();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i].lock();
+            try {
+                stripes[i].values().removeIf(entry -> entry.expiresAt <= now);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (snapshotPath.isBlank() || !Files.exists(Path.of(snapshotPath))) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(Path.of(snapshotPath))) {
+            restore(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @PreDestroy
+    public void snapshot() {
+        if (snapshotPath.isBlank()) {
+            return;
+        }
+        Path target = Path.of(snapshotPath);
+        try {
+            Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "verification", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                snapshot(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    void snapshot(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        long now = clock.getAsLong();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i].lock();
+            try {
+                for (Map.Entry<String, Entry> pending : stripes[i].entrySet()) {
+                    Entry entry = pending.getValue();
+                    if (entry.expiresAt <= now) {
+                        continue;
+                    }
+                    data.writeUTF(pending.getKey());
+                    data.write(entry.digest);
+                    data.writeLong(entry.expiresAt);
+                    data.writeInt(entry.failedAttempts);
+                }
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        data.flush();
+    }
+
+    void restore(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        long now = clock.getAsLong();
+        while (true) {
+            String username;
+            try {
+                username = data.readUTF();
+            } catch (EOFException e) {
+                return;
+            }
+            byte[] digest = new byte[32];
+            data.readFully(digest);
+            long expiresAt = data.readLong();
+            int failedAttempts = data.readInt();
+            if (expiresAt <= now) {
+                continue;
+            }
+
+            int stripe = stripeOf(username);
+            locks[stripe].lock();
+            try {
+                stripes[stripe].putIfAbsent(username, new Entry(digest, expiresAt, failedAttempts));
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+    }
+
+    private static int stripeOf(String username) {
+        int hash = username.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static byte[] digest(long code) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(Long.toString(code).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+-- Fills users.authority_mask from user_role_junction for users created before the mask existed.
+-- Bit n of the mask is the role with role_id n. Safe to run more than once.
+
+UPDATE users u
+SET u.authority_mask = (
+    SELECT COALESCE(BIT_OR(1 << j.role_id), 0)
+    FROM user_role_junction j
+    WHERE j.user_id = u.user_id
+);
@@ -0,0 +1,22 @@
+-- Converts users.user_id and user_role_junction.user_id to BINARY(16).
+-- Only needed for databases where the columns were created as text (CHAR(36) / VARCHAR(255)),
+-- check with: SHOW CREATE TABLE users;
+-- Existing random v4 ids keep their value, new users get time-ordered v7 ids from UuidV7Generator.
+-- Take a backup and stop the application before running.
+
+SET FOREIGN_KEY_CHECKS = 0;
+
+-- Keep the text bytes while the column is widened to binary, then pack them into 16 bytes
+ALTER TABLE user_role_junction MODIFY user_id VARBINARY(36) NOT NULL;
+ALTER TABLE users MODIFY user_id VARBINARY(36) NOT NULL;
+
+UPDATE user_role_junction SET user_id = UUID_TO_BIN(user_id) WHERE LENGTH(user_id) = 36;
+UPDATE users SET user_id = UUID_TO_BIN(user_id) WHERE LENGTH(user_id) = 36;
+
+ALTER TABLE user_role_junction MODIFY user_id BINARY(16) NOT NULL;
+ALTER TABLE users MODIFY user_id BINARY(16) NOT NULL;
+
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- Rebuild the clustered index so the old rows are packed again
+OPTIMIZE TABLE users;
@@ -0,0 +1,83 @@
+package com.twitter_backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MailHealthIndicatorTest {
+
+    private GmailClientProvider gmailClientProvider;
+    private MailHealthIndicator sut;
+
+    @BeforeEach
+    void setUp() {
+        gmailClientProvider = mock(GmailClientProvider.class);
+        sut = new MailHealthIndicator(gmailClientProvider);
+    }
+
+    @Test
+    void givenReadyClient_whenHealth_thenUp() {
+        when(gmailClientProvider.getState()).thenReturn(GmailClientProvider.State.READY);
+
+        assertEquals(Status.UP, sut.health().getStatus());
+    }
+
+    @Test
+    void givenLoadingClient_whenHealth_thenUnknown() {
+        when(gmailClientProvider.getState()).thenReturn(GmailClientProvider.State.LOADING);
+
+        assertEquals(Status.UNKNOWN, sut.health().getStatus());
+    }
+
+    @Test
+    void givenMissingToken_whenHealth_thenUnknownWithReasonSoTheInstanceStaysUp() {
+        when(gmailClientProvider.getState()).thenReturn(GmailClientProvider.State.NEEDS_AUTHORIZATION);
+        when(gmailClientProvider.getError()).thenReturn("No stored token in tokens");
+
+        Health health = sut.health();
+
+        assertEquals(Status.UNKNOWN, health.getStatus());
+        assertEquals("NEEDS_AUTHORIZATION", health.getDetails().get("state"));
+        assertEquals("No stored token in tokens", health.getDetails().get("error"));
+    }
+
+    @Test
+    void givenMissingCredentialsFile_whenProviderStarts_thenItFailsInTheBackground() throws Exception {
+        GmailClientProvider provider = new GmailClientProvider("/no-such-credentials.json", "tokens", 0, false,
+                60_000);
+
+        assertThrows(IllegalStateException.class, provider::get);
+        awaitLoaded(provider);
+
+        assertEquals(GmailClientProvider.State.FAILED, provider.getState());
+        assertEquals(Status.UNKNOWN, new MailHealthIndicator(provider).health().getStatus());
+    }
+
+    @Test
+    void givenFailedLoad_whenAskedAgainBeforeRetryInterval_thenNoNewAttemptStarts() throws Exception {
+        GmailClientProvider provider = new GmailClientProvider("/no-such-credentials.json", "tokens", 0, false,
+                60_000);
+        provider.start();
+        awaitLoaded(provider);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalStateException.class, provider::get);
+            provider.start();
+            assertEquals(GmailClientProvider.State.FAILED, provider.getState());
+        }
+    }
+
+    private static void awaitLoaded(GmailClientProvider provider) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (provider.getState() == GmailClientProvider.State.LOADING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.twitter_backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_backend.services.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RateLimitFilterTest {
+
+    private FilterChain filterChain;
+    private RateLimitFilter sut;
+
+    @BeforeEach
+    void setUp() {
+        filterChain = mock(FilterChain.class);
+        sut = new RateLimitFilter(new ObjectMapper(), new SimpleMeterRegistry(),
+                new RateLimiter(60, 10, 100), new RateLimiter(1, 1, 100), new RateLimiter(10, 10, 100), 10);
+    }
+
+    @Test
+    void givenRepeatedCodeRequests_whenFiltered_thenSecondIsRejectedWithRetryAfter() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        sut.doFilter(codeRequest("TheDude"), first, filterChain);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        sut.doFilter(codeRequest("TheDude"), second, filterChain);
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertNotNull(second.getHeader("Retry-After"));
+        verify(filterChain, times(1)).doFilter(any(), any());
+    }
+
+    @Test
+    void givenLimitedRequest_whenPassedOn_thenBodyCanStillBeRead() throws Exception {
+        doAnswer(invocation -> {
+            ServletRequest request = invocation.getArgument(0);
+            String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals("{\"username\":\"TheDude\"}", body);
+            return null;
+        }).when(filterChain).doFilter(any(), any());
+
+        sut.doFilter(codeRequest("TheDude"), new MockHttpServletResponse(), filterChain);
+
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    void givenRepeatedLogins_whenFiltered_thenSecondIsRejectedForThatUsername() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        sut.doFilter(loginRequest("TheDude"), first, filterChain);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        sut.doFilter(loginRequest("TheDude"), second, filterChain);
+        MockHttpServletResponse otherUser = new MockHttpServletResponse();
+        sut.doFilter(loginRequest("Walter"), otherUser, filterChain);
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals(200, otherUser.getStatus());
+    }
+
+    @Test
+    void givenBatches_whenFiltered_thenEachRowTakesAPermit() throws Exception {
+        MockHttpServletResponse sixRows = new MockHttpServletResponse();
+        sut.doFilter(batchRequest(6), sixRows, filterChain);
+        MockHttpServletResponse fiveRows = new MockHttpServletResponse();
+        sut.doFilter(batchRequest(5), fiveRows, filterChain);
+        MockHttpServletResponse fourRows = new MockHttpServletResponse();
+        sut.doFilter(batchRequest(4), fourRows, filterChain);
+
+        assertEquals(200, sixRows.getStatus());
+        assertEquals(429, fiveRows.getStatus());
+        assertEquals(200, fourRows.getStatus());
+    }
+
+    @Test
+    void givenOtherEndpoint_whenFiltered_thenNeverThrottled() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/tweet");
+            request.setContent("{\"username\":\"TheDude\"}".getBytes(StandardCharsets.UTF_8));
+            sut.doFilter(request, new MockHttpServletResponse(), filterChain);
+        }
+
+        verify(filterChain, times(5)).doFilter(any(), any());
+    }
+
+    private MockHttpServletRequest batchRequest(int rows) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"email\":\"dude").append(i).append("@example.com\"}");
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/authenticate/register/batch");
+        request.setContentType("application/json");
+        request.setContent(body.append("]").toString().getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletRequest loginRequest(String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/authenticate/login");
+        request.setContentType("application/json");
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"abides\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletRequest codeRequest(String username) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/authenticate/email/verification/code");
+        request.setContentType("application/json");
+        request.setContent(("{\"username\":\"" + username + "\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.twitter_backend.config;
+
+import com.twitter_backend.services.RecentWriteTracker;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A primary and two replicas as separate in-memory H2 databases, each knowing its own name
+public class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replicaA = database("replicaA");
+        DataSource replicaB = database("replicaB");
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, List.of(replicaA, replicaB), false));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void givenReadWriteTransaction_whenQuerying_thenPrimaryIsUsed() {
+        assertEquals("primary", readWrite.execute(status -> node()));
+    }
+
+    @Test
+    void givenNoTransaction_whenQuerying_thenPrimaryIsUsed() {
+        assertEquals("primary", node());
+    }
+
+    @Test
+    void givenReadOnlyTransactions_whenQuerying_thenReplicasTakeTurns() {
+        String first = readOnly.execute(status -> node());
+        String second = readOnly.execute(status -> node());
+
+        assertTrue(first.startsWith("replica"));
+        assertTrue(second.startsWith("replica"));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void givenReadOnlyTransaction_whenPinnedToPrimary_thenPrimaryIsUsed() {
+        assertEquals("primary", readOnly.execute(status -> ReplicaRoutingDataSource.onPrimary(this::node)));
+    }
+
+    @Test
+    void givenRecentWrite_whenReadThroughTracker_thenPrimaryIsUsedUntilThePinExpires() throws Exception {
+        RecentWriteTracker tracker = new RecentWriteTracker(200, 100);
+        tracker.recordWrite("TheDude");
+
+        assertEquals("primary", readOnly.execute(status -> tracker.read("TheDude", this::node)));
+        assertTrue(readOnly.execute(status -> tracker.read("Walter", this::node)).startsWith("replica"));
+
+        Thread.sleep(300);
+        assertTrue(readOnly.execute(status -> tracker.read("TheDude", this::node)).startsWith("replica"));
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        jdbcTemplate.execute("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.twitter_backend.controllers;
+
+import com.twitter_backend.exceptions.UserDoesntExistException;
+import com.twitter_backend.models.UserProfile;
+import com.twitter_backend.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class UserControllerTest {
+
+    private static final UserProfile PROFILE = new UserProfile(
+            UUID.fromString("0190a6f2-7c3e-7000-8000-000000000001"), "TheDude", "TheDude", "Dudeson");
+
+    private UserService userService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new UserController(userService)).build();
+    }
+
+    @Test
+    void givenExistingUser_whenGetProfile_thenBodyAndStrongEtagAreReturned() throws Exception {
+        when(userService.getProfile("TheDude")).thenReturn(PROFILE);
+
+        MvcResult result = mockMvc.perform(get("/user/TheDude"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("TheDude"))
+                .andExpect(jsonPath("$.email").doesNotExist())
+                .andReturn();
+
+        String etag = result.getResponse().getHeader("ETag");
+        assertNotNull(etag);
+        assertFalse(etag.startsWith("W/"));
+    }
+
+    @Test
+    void givenMatchingIfNoneMatch_whenGetProfile_thenNotModifiedWithoutBody() throws Exception {
+        when(userService.getProfile("TheDude")).thenReturn(PROFILE);
+        String etag = "\"" + UserController.etagOf(PROFILE) + "\"";
+
+        MvcResult result = mockMvc.perform(get("/user/TheDude").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getContentLength());
+        assertEquals(etag, result.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    void givenChangedProfile_whenGetProfileWithOldEtag_thenNewBodyIsReturned() throws Exception {
+        String oldEtag = "\"" + UserController.etagOf(PROFILE) + "\"";
+        when(userService.getProfile("TheDude")).thenReturn(
+                new UserProfile(PROFILE.userId(), "TheDude", "TheDude", "Lebowski"));
+
+        mockMvc.perform(get("/user/TheDude").header("If-None-Match", oldEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastName").value("Lebowski"));
+    }
+
+    @Test
+    void givenUnknownUser_whenGetProfile_thenNotFound() throws Exception {
+        when(userService.getProfile("notTheDude")).thenThrow(new UserDoesntExistException());
+
+        mockMvc.perform(get("/user/notTheDude")).andExpect(status().isNotFound());
+    }
+
+}
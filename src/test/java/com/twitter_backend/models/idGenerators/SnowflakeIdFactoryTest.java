@@ -0,0 +1,97 @@
+package com.twitter_backend.models.idGenerators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnowflakeIdFactoryTest {
+
+    private final SnowflakeIdFactory sut = new SnowflakeIdFactory(513);
+
+    @Test
+    void whenNext_thenNodeIdAndTimestampCanBeReadBack() {
+        long before = System.currentTimeMillis();
+        long id = sut.next();
+        long after = System.currentTimeMillis();
+
+        assertTrue(id > 0);
+        assertEquals(513, SnowflakeIdFactory.nodeIdOf(id));
+        long millis = SnowflakeIdFactory.timestampOf(id).toEpochMilli();
+        assertTrue(millis >= before && millis <= after + 1);
+    }
+
+    @Test
+    void givenNodeIdOutOfRange_whenCreated_thenThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdFactory(1024));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdFactory(-1));
+    }
+
+    @Test
+    void givenSequenceRunsOut_whenNextTimeAndSequence_thenItCarriesIntoTheTimestamp() {
+        long previous = sut.nextTimeAndSequence(1_000);
+        for (int i = 0; i < 10_000; i++) {
+            long next = sut.nextTimeAndSequence(1_000);
+            assertTrue(next > previous);
+            previous = next;
+        }
+        assertTrue(previous >>> SnowflakeIdFactory.SEQUENCE_BITS > 1_000);
+    }
+
+    @Test
+    void givenClockGoesBack_whenNextTimeAndSequence_thenValuesKeepIncreasing() {
+        long previous = sut.nextTimeAndSequence(5_000);
+        long next = sut.nextTimeAndSequence(4_000);
+
+        assertTrue(next > previous);
+    }
+
+    @Test
+    void givenId_whenFirstIdAtItsTimestamp_thenNotGreaterThanTheId() {
+        long id = sut.next();
+
+        assertTrue(SnowflakeIdFactory.firstIdAt(SnowflakeIdFactory.timestampOf(id)) <= id);
+    }
+
+    // Each thread's ids must increase and all of them together must be distinct. Enough ids to run through
+    // the sequence of a millisecond several times.
+    @Test
+    void givenConcurrentCallers_whenNext_thenIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = sut.next();
+                }
+                return ids;
+            }));
+        }
+        long[] all = new long[threads * perThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1]);
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        executor.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i]);
+        }
+    }
+
+}
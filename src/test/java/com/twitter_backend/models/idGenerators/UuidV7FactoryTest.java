@@ -0,0 +1,86 @@
+package com.twitter_backend.models.idGenerators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidV7FactoryTest {
+
+    private final UuidV7Factory sut = new UuidV7Factory();
+
+    @Test
+    void whenNext_thenVersionAndVariantAreSet() {
+        UUID uuid = sut.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void whenNext_thenTimestampIsCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID uuid = sut.next();
+        long after = System.currentTimeMillis();
+
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after + 1);
+    }
+
+    @Test
+    void givenManyIdsInOneMillisecond_whenNextTimeAndCounter_thenValuesKeepIncreasing() {
+        long previous = sut.nextTimeAndCounter(1_000);
+        for (int i = 0; i < 10_000; i++) {
+            long next = sut.nextTimeAndCounter(1_000);
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void givenClockGoesBack_whenNextTimeAndCounter_thenValuesKeepIncreasing() {
+        long previous = sut.nextTimeAndCounter(5_000);
+        long next = sut.nextTimeAndCounter(4_000);
+
+        assertTrue(next > previous);
+    }
+
+    @Test
+    void givenSequentialCalls_whenNext_thenIdsSortInCreationOrder() {
+        UUID previous = sut.next();
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = sut.next();
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    void givenConcurrentCallers_whenNext_thenIdsAreUnique() throws Exception {
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    seen.add(sut.next());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(8 * 20_000, seen.size());
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.twitter_backend.repositories;
+
+import com.twitter_backend.models.ApplicationUser;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Each step runs in its own committed transaction, the second-level cache is only filled on commit
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRepositoryCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transaction = new TransactionTemplate(transactionManager);
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void givenSavedUser_whenFoundByUsername_thenNoStatementIsExecuted() {
+        saveUser("TheDude");
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(userRepository.findByUsername("TheDude").isPresent());
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getNaturalIdCacheHitCount() > 0);
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+
+    @Test
+    void givenUnknownUsername_whenFoundByUsername_thenEmpty() {
+        assertTrue(userRepository.findByUsername("notTheDude").isEmpty());
+    }
+
+    @Test
+    void givenCachedUser_whenFieldsUpdated_thenTheNextReadSeesTheNewValue() {
+        saveUser("TheDude");
+        userRepository.findByUsername("TheDude");
+
+        assertEquals("Lebowski", userRepository.updateFieldsByUsername("TheDude", Map.of("lastName", "Lebowski"))
+                .orElseThrow().lastName());
+
+        assertEquals("Lebowski", userRepository.findByUsername("TheDude").orElseThrow().getLastName());
+    }
+
+    @Test
+    void givenChangedPassword_whenReadForLogin_thenTheNewHashIsReturned() {
+        saveUser("TheDude");
+        userRepository.findByUsername("TheDude");
+
+        userRepository.updateFieldsByUsername("TheDude", Map.of("password", "{bcrypt}newhash"));
+
+        assertEquals("{bcrypt}newhash", userRepository.findPasswordByUsername("TheDude").orElseThrow());
+    }
+
+    @Test
+    void givenUnknownUsername_whenFieldsUpdated_thenNothingIsChanged() {
+        assertTrue(userRepository.updateFieldsByUsername("notTheDude", Map.of("lastName", "Lebowski")).isEmpty());
+    }
+
+    private void saveUser(String username) {
+        transaction.executeWithoutResult(status -> {
+            ApplicationUser user = new ApplicationUser();
+            user.setUsername(username);
+            user.setFirstName("TheDude");
+            user.setLastName("Dudeson");
+            user.setEmail(username + "@example.com");
+            userRepository.save(user);
+        });
+    }
+
+}
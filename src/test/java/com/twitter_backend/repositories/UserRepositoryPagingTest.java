@@ -0,0 +1,134 @@
+package com.twitter_backend.repositories;
+
+import com.twitter_backend.models.UserProfile;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Keyset pages must read the same number of rows however deep they are. H2's EXPLAIN ANALYZE reports the
+// rows each table scan touched, which makes that testable without timing anything. The keyset query is the
+// one Hibernate generates, captured by SqlCapture.
+@DataJpaTest(properties = { "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.twitter_backend.repositories.UserRepositoryPagingTest$SqlCapture" })
+public class UserRepositoryPagingTest {
+
+    public static class SqlCapture implements StatementInspector {
+
+        static volatile String lastSelect;
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.regionMatches(true, 0, "select", 0, 6)) {
+                lastSelect = sql;
+            }
+            return sql;
+        }
+    }
+
+    private static final int USERS = 20_000;
+    private static final int PAGE_SIZE = 20;
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            UUID id = UUID.randomUUID();
+            byte[] bytes = ByteBuffer.allocate(16).putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits()).array();
+            rows.add(new Object[] { bytes, String.format("user%06d", i) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (user_id, username, first_name, last_name, authority_mask, enabled) "
+                + "VALUES (?, ?, 'The', 'Dude', 0, true)", rows);
+    }
+
+    @Test
+    void givenManyUsers_whenWalkingAllPages_thenEveryUserIsSeenOnceInOrder() {
+        String after = "";
+        int seen = 0;
+        while (true) {
+            List<UserProfile> page = userRepository.findProfilesByUsernameGreaterThanOrderByUsernameAsc(after,
+                    Limit.of(500));
+            if (page.isEmpty()) {
+                break;
+            }
+            for (UserProfile profile : page) {
+                assertEquals(String.format("user%06d", seen++), profile.username());
+            }
+            after = page.get(page.size() - 1).username();
+        }
+        assertEquals(USERS, seen);
+    }
+
+    @Test
+    void givenDeepPage_whenReadByKeyset_thenSameRowsAreScannedAsForTheFirstPage() {
+        long firstPage = keysetScanCount("");
+        long deepPage = keysetScanCount("user019000");
+        long deepOffsetPage = scanCount("SELECT username FROM users ORDER BY username LIMIT " + (PAGE_SIZE + 1)
+                + " OFFSET 19000");
+
+        assertTrue(firstPage <= 2 * (PAGE_SIZE + 1), "first page scanned " + firstPage);
+        assertEquals(firstPage, deepPage);
+        // What offset paging would cost at the same depth
+        assertTrue(deepOffsetPage > 19_000, "offset page scanned " + deepOffsetPage);
+    }
+
+    @Test
+    void givenDeepKeysetPage_whenQueried_thenItStartsRightAfterTheKey() {
+        List<UserProfile> page = userRepository.findProfilesByUsernameGreaterThanOrderByUsernameAsc("user019000",
+                Limit.of(PAGE_SIZE));
+
+        assertEquals(PAGE_SIZE, page.size());
+        assertEquals("user019001", page.get(0).username());
+    }
+
+    // Runs the repository query for one page, then explains the SQL it was sent as
+    private long keysetScanCount(String after) {
+        SqlCapture.lastSelect = null;
+        userRepository.findProfilesByUsernameGreaterThanOrderByUsernameAsc(after, Limit.of(PAGE_SIZE + 1));
+        String sql = SqlCapture.lastSelect;
+        assertNotNull(sql, "No query was captured");
+        // The username, then the row limit unless the dialect wrote it into the SQL
+        long placeholders = sql.chars().filter(c -> c == '?').count();
+        Object[] args = placeholders == 1 ? new Object[] { after } : new Object[] { after, PAGE_SIZE + 1 };
+        assertEquals(args.length, placeholders, sql);
+        return scanCount(sql, args);
+    }
+
+    private long scanCount(String sql, Object... args) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN ANALYZE " + sql, String.class, args));
+        Matcher matcher = SCAN_COUNT.matcher(plan);
+        long total = 0;
+        boolean found = false;
+        while (matcher.find()) {
+            total += Long.parseLong(matcher.group(1));
+            found = true;
+        }
+        assertTrue(found, "No scanCount in plan: " + plan);
+        return total;
+    }
+
+}
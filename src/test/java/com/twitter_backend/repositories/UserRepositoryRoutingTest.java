@@ -0,0 +1,101 @@
+package com.twitter_backend.repositories;
+
+import com.twitter_backend.config.DataSourceRoutingConfiguration;
+import com.twitter_backend.services.RecentWriteTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The repository behind the routing datasource, with a primary and two replicas as separate in-memory H2
+// databases. The same user has a different last name in each, which tells where a read went.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routingPrimary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.datasource.replica-urls=jdbc:h2:mem:routingReplicaA;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:routingReplicaB;DB_CLOSE_DELAY=-1" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ DataSourceRoutingConfiguration.class, UserRepositoryRoutingTest.Metrics.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRepositoryRoutingTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    private static final UUID DUDE = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000001");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        insertDude("routingPrimary", "Primary");
+        for (String replica : new String[] { "routingReplicaA", "routingReplicaB" }) {
+            JdbcTemplate jdbcTemplate = database(replica);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS users (user_id BINARY(16) PRIMARY KEY, "
+                    + "first_name VARCHAR(255), last_name VARCHAR(255), email VARCHAR(255), "
+                    + "phone_number VARCHAR(255), date_of_birth DATE, username VARCHAR(255), password VARCHAR(255), "
+                    + "authority_mask BIGINT NOT NULL, enabled BOOLEAN NOT NULL, created_at TIMESTAMP)");
+            insertDude(replica, "Replica");
+        }
+    }
+
+    @Test
+    void givenNoRecentWrite_whenProfileAndSummaryRead_thenTheyComeFromAReplica() {
+        assertEquals("Replica", userRepository.findProfileByUsername("TheDude").orElseThrow().lastName());
+        assertEquals("Replica", userRepository.findSummaryByUsername("TheDude").orElseThrow().lastName());
+    }
+
+    @Test
+    void givenRecentWrite_whenProfileReadThroughTheTracker_thenItComesFromThePrimary() {
+        RecentWriteTracker tracker = new RecentWriteTracker(5000, 100);
+        tracker.recordWrite("TheDude");
+
+        assertEquals("Primary",
+                tracker.read("TheDude", () -> userRepository.findProfileByUsername("TheDude")).orElseThrow()
+                        .lastName());
+        assertEquals("Replica",
+                tracker.read("Walter", () -> userRepository.findProfileByUsername("TheDude")).orElseThrow()
+                        .lastName());
+    }
+
+    private static void insertDude(String name, String lastName) {
+        JdbcTemplate jdbcTemplate = database(name);
+        jdbcTemplate.update("DELETE FROM users");
+        byte[] id = ByteBuffer.allocate(16).putLong(DUDE.getMostSignificantBits())
+                .putLong(DUDE.getLeastSignificantBits()).array();
+        jdbcTemplate.update("INSERT INTO users (user_id, username, first_name, last_name, authority_mask, enabled) "
+                + "VALUES (?, 'TheDude', 'The', ?, 0, true)", id, lastName);
+    }
+
+    private static JdbcTemplate database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return new JdbcTemplate(dataSource);
+    }
+
+}
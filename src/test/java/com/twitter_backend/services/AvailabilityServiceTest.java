@@ -0,0 +1,98 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AvailabilityServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserRepository userRepository;
+    private AvailabilityService sut;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:availability;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("CREATE TABLE users (email VARCHAR(255), username VARCHAR(255), "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO users (email, username) VALUES (?, ?)", "dude@example.com",
+                "TheDudeDudeson123");
+
+        userRepository = mock(UserRepository.class);
+        sut = new AvailabilityService(userRepository, jdbcTemplate, new SimpleMeterRegistry(), 1000, 0.01,
+                3_600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.shutdown();
+    }
+
+    @Test
+    void givenFilterNotBuilt_whenCheckingEmail_thenDatabaseIsAsked() {
+        when(userRepository.existsByEmail("walter@example.com")).thenReturn(false);
+
+        assertTrue(sut.isEmailAvailable("walter@example.com"));
+        verify(userRepository).existsByEmail("walter@example.com");
+        assertFalse(sut.isUsernameDefinitelyFree("Walter1"));
+    }
+
+    @Test
+    void givenBuiltFilter_whenCheckingUnknownEmail_thenAnsweredWithoutDatabase() {
+        sut.rebuild();
+
+        assertTrue(sut.isEmailAvailable("walter@example.com"));
+        assertTrue(sut.isUsernameDefinitelyFree("Walter1"));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void givenBuiltFilter_whenCheckingExistingEmailInOtherCase_thenDatabaseDecides() {
+        sut.rebuild();
+        when(userRepository.existsByEmail("Dude@Example.com")).thenReturn(true);
+
+        assertFalse(sut.isEmailAvailable("Dude@Example.com"));
+        verify(userRepository).existsByEmail("Dude@Example.com");
+    }
+
+    @Test
+    void givenRecordedUser_whenCheckingUsername_thenFilterNoLongerSaysFree() {
+        sut.rebuild();
+        sut.recordUser("walter@example.com", "WalterSobchak1");
+        when(userRepository.existsByUsername("WalterSobchak1")).thenReturn(true);
+
+        assertFalse(sut.isUsernameDefinitelyFree("WalterSobchak1"));
+        assertFalse(sut.isUsernameAvailable("WalterSobchak1"));
+    }
+
+    @Test
+    void givenUserRegisteredByAnotherInstance_whenCaughtUp_thenFilterNoLongerSaysFree() {
+        sut.rebuild();
+        jdbcTemplate.update("INSERT INTO users (email, username) VALUES (?, ?)", "walter@example.com",
+                "WalterSobchak1");
+        assertTrue(sut.isEmailDefinitelyFree("walter@example.com"));
+
+        sut.catchUp();
+
+        assertFalse(sut.isEmailDefinitelyFree("walter@example.com"));
+        assertFalse(sut.isUsernameDefinitelyFree("WalterSobchak1"));
+        assertTrue(sut.isEmailDefinitelyFree("donny@example.com"));
+    }
+
+    @Test
+    void givenAccentedEmail_whenNormalized_thenMatchesPlainEmail() {
+        assertEquals(AvailabilityService.normalize("jose@example.com"),
+                AvailabilityService.normalize(" José@Example.com"));
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.exceptions.BatchTooLargeException;
+import com.twitter_backend.exceptions.EmailAlreadyExistsException;
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.BatchRegistrationResult;
+import com.twitter_backend.models.RegistrationObject;
+import com.twitter_backend.models.RegistrationRowStatus;
+import com.twitter_backend.models.Role;
+import com.twitter_backend.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class BatchRegistrationServiceTest {
+
+    private UserRepository userRepository;
+    private UsernameAllocator usernameAllocator;
+    private AvailabilityService availabilityService;
+    private UserService userService;
+    private BatchRegistrationService sut;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        usernameAllocator = mock(UsernameAllocator.class);
+        availabilityService = mock(AvailabilityService.class);
+        userService = mock(UserService.class);
+        RoleRegistry roleRegistry = mock(RoleRegistry.class);
+        when(roleRegistry.getByAuthority("USER")).thenReturn(new Role(1, "USER"));
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of());
+        when(usernameAllocator.allocateAll(anyList())).thenAnswer(invocation -> {
+            List<String> usernames = new ArrayList<>();
+            for (String baseName : invocation.<List<String>>getArgument(0)) {
+                usernames.add(baseName + usernames.size());
+            }
+            return usernames;
+        });
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ApplicationUser> users = invocation.getArgument(0);
+            users.forEach(user -> user.setUserId(UUID.randomUUID()));
+            return users;
+        });
+        sut = new BatchRegistrationService(userRepository, usernameAllocator, roleRegistry, availabilityService,
+                new RecentWriteTracker(1000, 100), userService, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), 2, 5);
+    }
+
+    @Test
+    void givenValidRows_whenRegisterAll_thenEveryChunkIsSavedTogether() {
+        BatchRegistrationResult result = sut.registerAll(List.of(row("a@test.com"), row("b@test.com"),
+                row("c@test.com")));
+
+        assertEquals(3, result.registered());
+        assertEquals(0, result.rejected());
+        result.rows().forEach(row -> {
+            assertEquals(RegistrationRowStatus.REGISTERED, row.status());
+            assertNotNull(row.userId());
+        });
+        verify(userRepository, times(2)).saveAll(anyList());
+        verify(availabilityService, times(3)).recordUser(any(), any());
+        verify(userService, never()).registerUser(any());
+    }
+
+    @Test
+    void givenDuplicateAndTakenEmails_whenRegisterAll_thenThoseRowsAreRejected() {
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("taken@test.com"));
+
+        BatchRegistrationResult result = sut.registerAll(List.of(row("a@test.com"), row("A@test.com"),
+                row("taken@test.com"), row(null)));
+
+        assertEquals(1, result.registered());
+        assertEquals(RegistrationRowStatus.REGISTERED, result.rows().get(0).status());
+        assertEquals(RegistrationRowStatus.EMAIL_TAKEN, result.rows().get(1).status());
+        assertEquals(RegistrationRowStatus.EMAIL_TAKEN, result.rows().get(2).status());
+        assertEquals(RegistrationRowStatus.INVALID, result.rows().get(3).status());
+    }
+
+    @Test
+    void givenEmailsKnownFreeByFilter_whenRegisterAll_thenEmailsAreNotQueried() {
+        when(availabilityService.isEmailDefinitelyFree(any())).thenReturn(true);
+
+        sut.registerAll(List.of(row("a@test.com"), row("b@test.com")));
+
+        verify(userRepository, never()).findExistingEmails(anyCollection());
+    }
+
+    @Test
+    void givenChunkFails_whenRegisterAll_thenRowsAreRetriedOneByOne() {
+        when(userRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        ApplicationUser saved = new ApplicationUser();
+        saved.setUserId(UUID.randomUUID());
+        saved.setUsername("TheDudeDudeson1");
+        when(userService.registerUser(any())).thenReturn(saved).thenThrow(new EmailAlreadyExistsException());
+
+        BatchRegistrationResult result = sut.registerAll(List.of(row("a@test.com"), row("b@test.com")));
+
+        assertEquals(RegistrationRowStatus.REGISTERED, result.rows().get(0).status());
+        assertEquals("TheDudeDudeson1", result.rows().get(0).username());
+        assertEquals(RegistrationRowStatus.EMAIL_TAKEN, result.rows().get(1).status());
+    }
+
+    @Test
+    void givenTooManyRows_whenRegisterAll_thenThrowsBatchTooLarge() {
+        List<RegistrationObject> rows = Collections.nCopies(6, row("a@test.com"));
+
+        assertThrows(BatchTooLargeException.class, () -> sut.registerAll(rows));
+    }
+
+    private static RegistrationObject row(String email) {
+        return new RegistrationObject("The", "Dude", email, new Date());
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.twitter_backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void givenInsertedValues_whenMightContain_thenAlwaysTrue() {
+        BloomFilter sut = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            sut.put("dude" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(sut.mightContain("dude" + i + "@example.com"));
+        }
+        assertEquals(10_000, sut.getInsertions());
+    }
+
+    @Test
+    void givenFilterAtCapacity_whenQueryingOtherValues_thenFalsePositivesStayNearTheRate() {
+        BloomFilter sut = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            sut.put("dude" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (sut.mightContain("walter" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void givenConcurrentInserts_whenMightContain_thenNoValueIsLost() throws Exception {
+        BloomFilter sut = new BloomFilter(80_000, 0.01);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t * 10_000;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    sut.put("user" + (offset + i));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < 80_000; i++) {
+            assertTrue(sut.mightContain("user" + i));
+        }
+    }
+
+}
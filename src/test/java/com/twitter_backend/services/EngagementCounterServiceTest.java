@@ -0,0 +1,180 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.exceptions.TweetDoesntExistException;
+import com.twitter_backend.models.EngagementCounts;
+import com.twitter_backend.models.EngagementType;
+import com.twitter_backend.repositories.TweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class EngagementCounterServiceTest {
+
+    private static final long TWEET_ID = 42L;
+
+    private JdbcTemplate jdbcTemplate;
+    private TweetRepository tweetRepository;
+    private EngagementCounterService sut;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:engagement;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS tweet_counters");
+        createTable();
+
+        tweetRepository = mock(TweetRepository.class);
+        sut = new EngagementCounterService(jdbcTemplate, tweetRepository, new RecentWriteTracker(5000, 1000),
+                new DataSourceTransactionManager(dataSource), new SimpleMeterRegistry(), 2, 100);
+    }
+
+    private void createTable() {
+        jdbcTemplate.execute("CREATE TABLE tweet_counters (tweet_id BIGINT PRIMARY KEY, "
+                + "likes BIGINT NOT NULL, retweets BIGINT NOT NULL, views BIGINT NOT NULL)");
+    }
+
+    private long persistedLikes(long tweetId) {
+        return jdbcTemplate.queryForObject("SELECT likes FROM tweet_counters WHERE tweet_id = ?", Long.class,
+                tweetId);
+    }
+
+    @Test
+    void givenUnflushedIncrements_whenGetCounts_thenPendingDeltasAreCounted() {
+        sut.increment(TWEET_ID, EngagementType.LIKE);
+        sut.increment(TWEET_ID, EngagementType.LIKE);
+        sut.increment(TWEET_ID, EngagementType.VIEW);
+
+        assertEquals(new EngagementCounts(2, 0, 1), sut.getCounts(TWEET_ID));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tweet_counters", Integer.class));
+    }
+
+    @Test
+    void givenFlushes_whenGetCounts_thenPersistedTotalsPlusPending() {
+        sut.increment(TWEET_ID, EngagementType.LIKE);
+        sut.increment(TWEET_ID, EngagementType.RETWEET);
+        sut.flush();
+        sut.increment(TWEET_ID, EngagementType.LIKE);
+        sut.flush();
+        sut.increment(TWEET_ID, EngagementType.VIEW);
+
+        assertEquals(2, persistedLikes(TWEET_ID));
+        assertEquals(new EngagementCounts(2, 1, 1), sut.getCounts(TWEET_ID));
+    }
+
+    @Test
+    void givenMoreTweetsThanBatchSize_whenFlush_thenEveryTweetIsWritten() {
+        for (long tweetId = 1; tweetId <= 5; tweetId++) {
+            for (int i = 0; i < tweetId; i++) {
+                sut.increment(tweetId, EngagementType.LIKE);
+            }
+        }
+
+        sut.flush();
+
+        for (long tweetId = 1; tweetId <= 5; tweetId++) {
+            assertEquals(tweetId, persistedLikes(tweetId));
+        }
+    }
+
+    @Test
+    void givenFailedFlush_whenNextFlushSucceeds_thenNothingIsLostOrCountedTwice() {
+        jdbcTemplate.execute("DROP TABLE tweet_counters");
+        sut.increment(TWEET_ID, EngagementType.LIKE);
+        sut.increment(TWEET_ID + 1, EngagementType.LIKE);
+
+        sut.flush();
+        createTable();
+        sut.flush();
+
+        assertEquals(1, persistedLikes(TWEET_ID));
+        assertEquals(1, persistedLikes(TWEET_ID + 1));
+        assertEquals(new EngagementCounts(1, 0, 0), sut.getCounts(TWEET_ID));
+    }
+
+    @Test
+    void givenIdleTweet_whenIncrementedAfterItsCountsAreRetired_thenTheIncrementIsFlushed() {
+        sut.increment(TWEET_ID, EngagementType.LIKE);
+        sut.flush();
+        sut.flush();
+        sut.flush();
+
+        sut.increment(TWEET_ID, EngagementType.LIKE);
+        sut.flush();
+
+        assertEquals(2, persistedLikes(TWEET_ID));
+        assertEquals(new EngagementCounts(2, 0, 0), sut.getCounts(TWEET_ID));
+    }
+
+    @Test
+    void givenConcurrentIncrementsAndFlushes_whenDone_thenTotalIsExact() throws Exception {
+        int threads = 8;
+        int perThread = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        sut.increment(TWEET_ID + i % 3, EngagementType.VIEW);
+                    }
+                }));
+            }
+            while (!futures.stream().allMatch(Future::isDone)) {
+                sut.flush();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        sut.flush();
+        sut.flush();
+
+        long total = jdbcTemplate.queryForObject("SELECT SUM(views) FROM tweet_counters", Long.class);
+        assertEquals((long) threads * perThread, total);
+    }
+
+    @Test
+    void givenPendingCounts_whenContextCloses_thenTheyAreFlushed() {
+        sut.increment(TWEET_ID, EngagementType.RETWEET);
+
+        sut.flushOnShutdown();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT retweets FROM tweet_counters WHERE tweet_id = ?",
+                Long.class, TWEET_ID));
+    }
+
+    @Test
+    void givenUnknownTweet_whenRecord_thenThrowsAndCountsNothing() {
+        when(tweetRepository.existsById(TWEET_ID)).thenReturn(false);
+
+        assertThrows(TweetDoesntExistException.class, () -> sut.record(TWEET_ID, EngagementType.LIKE));
+        assertEquals(EngagementCounts.ZERO, sut.getCounts(TWEET_ID));
+    }
+
+    @Test
+    void givenTweetFoundOnce_whenRecordedAgain_thenItIsNotLookedUpAgain() {
+        when(tweetRepository.existsById(TWEET_ID)).thenReturn(true);
+
+        sut.record(TWEET_ID, EngagementType.LIKE);
+        sut.record(TWEET_ID, EngagementType.VIEW);
+
+        verify(tweetRepository, times(1)).existsById(TWEET_ID);
+        assertEquals(new EngagementCounts(1, 0, 1), sut.getCounts(TWEET_ID));
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.twitter_backend.services;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FollowGraphTest {
+
+    private static final UUID DUDE = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000001");
+    private static final UUID WALTER = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000002");
+    private static final UUID DONNY = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000003");
+
+    private JdbcTemplate jdbcTemplate;
+    private FollowGraph sut;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:follows;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS follows (follower_id BINARY(16), followee_id BINARY(16), "
+                + "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (follower_id, followee_id))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS follow_removals (removal_id BIGINT AUTO_INCREMENT "
+                + "PRIMARY KEY, follower_id BINARY(16), followee_id BINARY(16), removed_at TIMESTAMP)");
+        jdbcTemplate.execute("DELETE FROM follows");
+        jdbcTemplate.execute("DELETE FROM follow_removals");
+        insert(DUDE, WALTER);
+        insert(WALTER, DUDE);
+        insert(DONNY, WALTER);
+
+        sut = new FollowGraph(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.shutdown();
+    }
+
+    @Test
+    void givenLoadedTable_whenQueried_thenEdgesAndCountsMatch() {
+        sut.load();
+
+        assertTrue(sut.isReady());
+        assertTrue(sut.isFollowing(DUDE, WALTER));
+        assertFalse(sut.isFollowing(WALTER, DONNY));
+        assertEquals(2, sut.followerCount(WALTER));
+        assertEquals(1, sut.followingCount(WALTER));
+        assertTrue(sut.isMutual(DUDE, WALTER));
+        assertFalse(sut.isMutual(DONNY, WALTER));
+        assertEquals(List.of(DUDE), sut.mutualFollows(WALTER, 10));
+    }
+
+    @Test
+    void givenChangesBeforeLoadFinishes_whenLoaded_thenTheyAreReplayedInOrder() {
+        sut.follow(WALTER, DONNY);
+        sut.unfollow(DUDE, WALTER);
+        sut.follow(DUDE, DONNY);
+        sut.unfollow(DUDE, DONNY);
+
+        assertFalse(sut.isReady());
+        sut.load();
+
+        assertTrue(sut.isFollowing(WALTER, DONNY));
+        assertFalse(sut.isFollowing(DUDE, WALTER));
+        assertFalse(sut.isFollowing(DUDE, DONNY));
+        assertEquals(1, sut.followerCount(WALTER));
+    }
+
+    @Test
+    void givenChangesThroughAnotherInstance_whenCaughtUp_thenTheGraphMatchesTheTable() {
+        sut.load();
+        insert(WALTER, DONNY);
+        jdbcTemplate.update("DELETE FROM follows WHERE follower_id = ? AND followee_id = ?", bytesOf(DUDE),
+                bytesOf(WALTER));
+        remove(DUDE, WALTER, 0);
+        // Unfollowed and followed again
+        remove(DONNY, WALTER, 0);
+        // Pruned, and too old to be read
+        remove(WALTER, DUDE, FollowGraph.REMOVAL_RETENTION_MS + 1000);
+
+        sut.catchUp();
+
+        assertTrue(sut.isFollowing(WALTER, DONNY));
+        assertFalse(sut.isFollowing(DUDE, WALTER));
+        assertTrue(sut.isFollowing(DONNY, WALTER));
+        assertTrue(sut.isFollowing(WALTER, DUDE));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM follow_removals WHERE follower_id = ?",
+                Integer.class, bytesOf(WALTER)));
+    }
+
+    @Test
+    void givenMoreChangesThanTheLogHolds_whenLoaded_thenTheNewestAreReplayed() {
+        UUID fan = UUID.randomUUID();
+        for (int i = 0; i <= FollowGraph.MAX_PENDING; i++) {
+            if (i % 2 == 0) {
+                sut.follow(fan, DONNY);
+            } else {
+                sut.unfollow(fan, DONNY);
+            }
+        }
+        jdbcTemplate.update("DELETE FROM follows WHERE follower_id = ? AND followee_id = ?", bytesOf(DONNY),
+                bytesOf(WALTER));
+        sut.unfollow(DONNY, WALTER);
+
+        sut.load();
+
+        assertTrue(sut.isFollowing(fan, DONNY));
+        assertFalse(sut.isFollowing(DONNY, WALTER));
+    }
+
+    @Test
+    void givenManyFollowsAndUnfollows_whenCounted_thenDeltasAndCompactionAgree() {
+        sut.load();
+        UUID celebrity = UUID.randomUUID();
+        UUID[] fans = new UUID[500];
+        for (int i = 0; i < fans.length; i++) {
+            fans[i] = UUID.randomUUID();
+            sut.follow(fans[i], celebrity);
+            sut.follow(fans[i], celebrity);
+        }
+        for (int i = 0; i < fans.length; i += 2) {
+            sut.unfollow(fans[i], celebrity);
+        }
+
+        assertEquals(250, sut.followerCount(celebrity));
+        assertFalse(sut.isFollowing(fans[0], celebrity));
+        assertTrue(sut.isFollowing(fans[1], celebrity));
+        int[] followerIds = sut.followerIdsOf(sut.denseIdOf(celebrity));
+        assertEquals(250, followerIds.length);
+        for (int i = 1; i < followerIds.length; i++) {
+            assertTrue(followerIds[i] > followerIds[i - 1]);
+        }
+    }
+
+    @Test
+    void givenUnknownUser_whenQueried_thenNothingIsFound() {
+        sut.load();
+        UUID stranger = UUID.randomUUID();
+
+        assertEquals(-1, sut.denseIdOf(stranger));
+        assertEquals(0, sut.followerCount(stranger));
+        assertFalse(sut.isFollowing(stranger, DUDE));
+        assertTrue(sut.mutualFollows(stranger, 10).isEmpty());
+    }
+
+    private void insert(UUID follower, UUID followee) {
+        jdbcTemplate.update("INSERT INTO follows VALUES (?, ?)", bytesOf(follower), bytesOf(followee));
+    }
+
+    private void remove(UUID follower, UUID followee, long agoMs) {
+        jdbcTemplate.update("INSERT INTO follow_removals (follower_id, followee_id, removed_at) VALUES (?, ?, ?)",
+                bytesOf(follower), bytesOf(followee), new Timestamp(System.currentTimeMillis() - agoMs));
+    }
+
+    private static byte[] bytesOf(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+}
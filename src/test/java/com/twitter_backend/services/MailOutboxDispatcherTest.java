@@ -0,0 +1,122 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.models.MailOutboxMessage;
+import com.twitter_backend.models.MailOutboxStatus;
+import com.twitter_backend.repositories.MailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class MailOutboxDispatcherTest {
+
+    private MailOutboxRepository mailOutboxRepository;
+    private MailTransport mailTransport;
+    private MailOutboxDispatcher sut;
+
+    @BeforeEach
+    void setUp() {
+        mailOutboxRepository = mock(MailOutboxRepository.class);
+        mailTransport = mock(MailTransport.class);
+        when(mailTransport.isReady()).thenReturn(true);
+        sut = new MailOutboxDispatcher(mailOutboxRepository, mailTransport,
+                new MailMetrics(new SimpleMeterRegistry()), mock(PlatformTransactionManager.class),
+                2, 10, 3, 1000, 60_000, 5000, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.shutdown();
+    }
+
+    private MailOutboxMessage givenPendingMessage() {
+        MailOutboxMessage message = new MailOutboxMessage("dude@example.com", "Your verification code", "123");
+        when(mailOutboxRepository.findByStatusInAndNextAttemptAtLessThanEqualOrderByMessageIdAsc(
+                anyCollection(), any(Instant.class), any())).thenReturn(List.of(message));
+        return message;
+    }
+
+    @Test
+    void givenPendingMessage_whenDispatch_thenMessageIsSentAndMarkedSent() throws Exception {
+        MailOutboxMessage message = givenPendingMessage();
+
+        sut.dispatch();
+
+        verify(mailTransport).send("dude@example.com", "Your verification code", "123");
+        assertEquals(MailOutboxStatus.SENT, message.getStatus());
+        assertNotNull(message.getSentAt());
+        verify(mailOutboxRepository).saveAll(List.of(message));
+    }
+
+    @Test
+    void givenTransportFails_whenDispatch_thenMessageIsRescheduled() throws Exception {
+        MailOutboxMessage message = givenPendingMessage();
+        doThrow(new RuntimeException("Gmail down")).when(mailTransport).send(any(), any(), any());
+        Instant before = Instant.now();
+
+        sut.dispatch();
+
+        assertEquals(MailOutboxStatus.PENDING, message.getStatus());
+        assertEquals(1, message.getAttempts());
+        assertTrue(message.getNextAttemptAt().isAfter(before.plusMillis(900)));
+        assertTrue(message.getLastError().contains("Gmail down"));
+    }
+
+    @Test
+    void givenLastAttemptFails_whenDispatch_thenMessageIsDeadLettered() throws Exception {
+        MailOutboxMessage message = givenPendingMessage();
+        message.setAttempts(2);
+        doThrow(new RuntimeException("Gmail down")).when(mailTransport).send(any(), any(), any());
+
+        sut.dispatch();
+
+        assertEquals(MailOutboxStatus.DEAD, message.getStatus());
+        assertEquals(3, message.getAttempts());
+    }
+
+    @Test
+    void givenTransportNotReady_whenDispatch_thenMessageWaitsWithoutUsingAnAttempt() throws Exception {
+        MailOutboxMessage message = givenPendingMessage();
+        when(mailTransport.isReady()).thenReturn(false);
+
+        sut.dispatch();
+
+        verify(mailTransport, never()).send(any(), any(), any());
+        verify(mailOutboxRepository, never()).findByStatusInAndNextAttemptAtLessThanEqualOrderByMessageIdAsc(
+                anyCollection(), any(), any());
+        assertEquals(MailOutboxStatus.PENDING, message.getStatus());
+        assertEquals(0, message.getAttempts());
+    }
+
+    @Test
+    void givenClaimedMessage_whenSending_thenItIsMarkedSendingUntilTheLeaseLapses() throws Exception {
+        MailOutboxMessage message = givenPendingMessage();
+        Instant before = Instant.now();
+        doAnswer(invocation -> {
+            assertEquals(MailOutboxStatus.SENDING, message.getStatus());
+            assertTrue(message.getNextAttemptAt().isAfter(before.plusMillis(5000)));
+            return null;
+        }).when(mailTransport).send(any(), any(), any());
+
+        sut.dispatch();
+
+        assertEquals(MailOutboxStatus.SENT, message.getStatus());
+    }
+
+    @Test
+    void givenManyAttempts_whenBackoff_thenDelayIsCapped() {
+        assertTrue(sut.backoff(1).toMillis() >= 1000);
+        assertTrue(sut.backoff(2).toMillis() >= 2000);
+        assertTrue(sut.backoff(40).toMillis() <= 72_000);
+    }
+
+}
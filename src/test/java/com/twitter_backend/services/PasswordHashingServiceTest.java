@@ -0,0 +1,75 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.exceptions.PasswordHashingBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class PasswordHashingServiceTest {
+
+    private PasswordHashingService sut;
+
+    @AfterEach
+    void tearDown() {
+        sut.shutdown();
+    }
+
+    @Test
+    void givenPassword_whenEncode_thenHashMatches() {
+        sut = new PasswordHashingService(new BCryptPasswordEncoder(4), 2, 4, 5000);
+
+        String hash = sut.encode("hunter2");
+
+        assertTrue(sut.matches("hunter2", hash));
+        assertFalse(sut.matches("hunter3", hash));
+    }
+
+    @Test
+    void givenLowerCostHash_whenUpgradeEncoding_thenTrue() {
+        sut = new PasswordHashingService(new BCryptPasswordEncoder(6), 1, 4, 5000);
+
+        assertTrue(sut.upgradeEncoding(new BCryptPasswordEncoder(4).encode("hunter2")));
+        assertFalse(sut.upgradeEncoding(new BCryptPasswordEncoder(6).encode("hunter2")));
+    }
+
+    @Test
+    void givenPoolAndQueueFull_whenEncode_thenThrowsBusyImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = mock(PasswordEncoder.class);
+        when(slowEncoder.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        sut = new PasswordHashingService(slowEncoder, 1, 1, 10_000);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        callers.submit(() -> sut.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> sut.encode("queued"));
+        // Wait until the second call sits in the queue
+        for (int i = 0; i < 500 && sut.getQueuedTasks() == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        long start = System.nanoTime();
+        assertThrows(PasswordHashingBusyException.class, () -> sut.encode("rejected"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+        release.countDown();
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+}
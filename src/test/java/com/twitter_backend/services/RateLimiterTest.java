@@ -0,0 +1,94 @@
+package com.twitter_backend.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(42 * SECOND);
+    private RateLimiter sut;
+
+    @BeforeEach
+    void setUp() {
+        // One permit every 10 seconds, bursts of 3
+        sut = new RateLimiter(now::get, 6, 3, 2);
+    }
+
+    @Test
+    void givenFullBucket_whenBurstIsUsed_thenNextRequestWaitsOneInterval() {
+        assertEquals(0, sut.tryAcquire("TheDude"));
+        assertEquals(0, sut.tryAcquire("TheDude"));
+        assertEquals(0, sut.tryAcquire("TheDude"));
+
+        assertEquals(10 * SECOND, sut.tryAcquire("TheDude"));
+    }
+
+    @Test
+    void givenEmptyBucket_whenIntervalPasses_thenOnePermitIsBack() {
+        for (int i = 0; i < 3; i++) {
+            sut.tryAcquire("TheDude");
+        }
+        now.addAndGet(10 * SECOND);
+
+        assertEquals(0, sut.tryAcquire("TheDude"));
+        assertTrue(sut.tryAcquire("TheDude") > 0);
+    }
+
+    @Test
+    void givenDifferentKeys_whenAcquire_thenBucketsAreIndependent() {
+        for (int i = 0; i < 3; i++) {
+            sut.tryAcquire("TheDude");
+        }
+
+        assertEquals(0, sut.tryAcquire("Walter"));
+    }
+
+    @Test
+    void givenRefilledBucket_whenEvictIdle_thenItIsRemoved() {
+        sut.tryAcquire("TheDude");
+        for (int i = 0; i < 3; i++) {
+            sut.tryAcquire("Walter");
+        }
+        now.addAndGet(10 * SECOND);
+
+        sut.evictIdle();
+
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    void givenFullTableOfBusyKeys_whenNewKeyArrives_thenRequestIsRejected() {
+        sut.tryAcquire("TheDude");
+        sut.tryAcquire("Walter");
+
+        assertEquals(10 * SECOND, sut.tryAcquire("Donny"));
+        assertEquals(2, sut.size());
+    }
+
+    @Test
+    void givenFullTableWithIdleKey_whenNewKeyArrives_thenIdleKeyIsEvictedToMakeRoom() {
+        sut.tryAcquire("TheDude");
+        for (int i = 0; i < 3; i++) {
+            sut.tryAcquire("Walter");
+        }
+        now.addAndGet(10 * SECOND);
+
+        assertEquals(0, sut.tryAcquire("Donny"));
+        assertEquals(2, sut.size());
+    }
+
+    @Test
+    void givenWeightedAcquire_whenPermitsExceedWhatIsLeft_thenItWaitsForTheShortfall() {
+        assertEquals(0, sut.tryAcquire("TheDude", 2));
+
+        assertEquals(10 * SECOND, sut.tryAcquire("TheDude", 2));
+        assertEquals(0, sut.tryAcquire("TheDude", 1));
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.models.Role;
+import com.twitter_backend.repositories.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RoleRegistryTest {
+
+    private RoleRepository roleRepository;
+    private RoleRegistry sut;
+
+    @BeforeEach
+    void setUp() {
+        roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findAll()).thenReturn(List.of(new Role(1, "USER"), new Role(2, "ADMIN")));
+        sut = new RoleRegistry(roleRepository);
+        sut.refresh();
+    }
+
+    @Test
+    void givenLoadedRoles_whenGetByAuthority_thenNoQueryIsMade() {
+        clearInvocations(roleRepository);
+
+        assertEquals(1, sut.getByAuthority("USER").getRoleID());
+        verifyNoInteractions(roleRepository);
+    }
+
+    @Test
+    void givenUnknownAuthority_whenGetByAuthority_thenThrowsNoSuchElement() {
+        assertThrows(NoSuchElementException.class, () -> sut.getByAuthority("OWNER"));
+    }
+
+    @Test
+    void givenRoles_whenMaskOfAndRolesOf_thenRolesRoundTrip() {
+        long mask = RoleRegistry.maskOf(Set.of(sut.getByAuthority("USER"), sut.getByAuthority("ADMIN")));
+
+        assertEquals(0b110L, mask);
+        assertEquals(Set.of("USER", "ADMIN"),
+                RoleRegistry.rolesOf(mask).stream().map(Role::getAuthority).collect(java.util.stream.Collectors.toSet()));
+    }
+
+    @Test
+    void givenRoleAdded_whenRoleChanged_thenRegistryIsRefreshed() {
+        when(roleRepository.findAll()).thenReturn(List.of(new Role(1, "USER"), new Role(3, "MODERATOR")));
+
+        sut.onRoleChanged(new RoleChangedEvent(3, "MODERATOR"));
+
+        assertEquals(3, sut.getByAuthority("MODERATOR").getRoleID());
+    }
+
+    @Test
+    void givenRoleIdTooLarge_whenRefresh_thenThrowsIllegalState() {
+        when(roleRepository.findAll()).thenReturn(List.of(new Role(64, "TOO_BIG")));
+
+        assertThrows(IllegalStateException.class, () -> sut.refresh());
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.twitter_backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimelineBufferTest {
+
+    @Test
+    void givenMoreIdsThanCapacity_whenAdded_thenOldestAreOverwritten() {
+        TimelineBuffer sut = new TimelineBuffer(3);
+        for (long id = 1; id <= 5; id++) {
+            sut.add(id);
+        }
+
+        assertArrayEquals(new long[] { 5, 4, 3 }, sut.newestFirst(Long.MAX_VALUE, 10));
+        assertArrayEquals(new long[] { 4 }, sut.newestFirst(5, 1));
+    }
+
+    @Test
+    void givenOutOfOrderAndDuplicateIds_whenRead_thenSortedWithoutDuplicates() {
+        TimelineBuffer sut = new TimelineBuffer(8);
+        sut.add(7);
+        sut.add(9);
+        sut.add(8);
+        sut.add(9);
+
+        assertArrayEquals(new long[] { 9, 8, 7 }, sut.newestFirst(Long.MAX_VALUE, 10));
+    }
+
+    @Test
+    void givenSeed_whenAddedAfterwards_thenSeededIdsAreOverwrittenFirst() {
+        TimelineBuffer sut = new TimelineBuffer(3);
+        sut.add(10);
+
+        assertTrue(sut.seed(new long[] { 6, 5, 4 }));
+        assertFalse(sut.seed(new long[] { 3 }));
+        sut.add(11);
+
+        assertArrayEquals(new long[] { 11, 10, 6 }, sut.newestFirst(Long.MAX_VALUE, 10));
+    }
+
+    @Test
+    void givenShortSeed_whenFilledUp_thenItIsFullOnlyOnceTheLastSlotIsTaken() {
+        TimelineBuffer sut = new TimelineBuffer(3);
+        sut.seed(new long[] { 2, 1 });
+
+        assertFalse(sut.isFull());
+        sut.add(3);
+        assertTrue(sut.isFull());
+    }
+
+}
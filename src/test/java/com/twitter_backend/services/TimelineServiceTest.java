@@ -0,0 +1,154 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.models.CursorPage;
+import com.twitter_backend.models.Tweet;
+import com.twitter_backend.repositories.FollowRepository;
+import com.twitter_backend.repositories.TweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TimelineServiceTest {
+
+    private static final UUID DUDE = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000001");
+    private static final UUID WALTER = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000002");
+    private static final UUID DONNY = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000003");
+    private static final UUID JESUS = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000004");
+
+    private final Map<Long, Tweet> tweets = new ConcurrentHashMap<>();
+    private FollowGraph followGraph;
+    private FollowRepository followRepository;
+    private TweetRepository tweetRepository;
+    private TimelineService sut;
+    private long nextId = 1;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        followGraph = new FollowGraph(null);
+        followRepository = mock(FollowRepository.class);
+        tweetRepository = mock(TweetRepository.class);
+        when(tweetRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Tweet> found = new ArrayList<>();
+            invocation.<Iterable<Long>>getArgument(0).forEach(id -> found.add(tweets.get(id)));
+            return found;
+        });
+        when(tweetRepository.findByAuthorIdInAndTweetIdLessThanOrderByTweetIdDesc(anyCollection(), anyLong(),
+                any(Limit.class))).thenAnswer(invocation -> {
+                    Collection<UUID> authors = invocation.getArgument(0);
+                    long before = invocation.getArgument(1);
+                    return tweets.values().stream()
+                            .filter(tweet -> authors.contains(tweet.getAuthorId()) && tweet.getTweetId() < before)
+                            .sorted(Comparator.comparing(Tweet::getTweetId).reversed())
+                            .limit(invocation.<Limit>getArgument(2).max())
+                            .toList();
+                });
+        // Walter has three followers and is above the threshold, Donny has one
+        sut = new TimelineService(followGraph, followRepository, tweetRepository, new RecentWriteTracker(5000, 1000),
+                new SimpleMeterRegistry(), 4, 100, 60_000, 3, 1, 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.shutdown();
+    }
+
+    @Test
+    void givenActiveFollower_whenTweetFannedOut_thenItIsOnTheirTimeline() throws Exception {
+        loadGraph();
+        Tweet old = post(DONNY, "old");
+        assertEquals(List.of(old), sut.getHomeTimeline(DUDE, null, 10).items());
+
+        Tweet fresh = post(DONNY, "fresh");
+        sut.fanOut(fresh).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(fresh, old), sut.getHomeTimeline(DUDE, null, 10).items());
+        CursorPage<Tweet> first = sut.getHomeTimeline(DUDE, null, 1);
+        assertEquals(List.of(fresh), first.items());
+        CursorPage<Tweet> second = sut.getHomeTimeline(DUDE, first.nextCursor(), 1);
+        assertEquals(List.of(old), second.items());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void givenAuthorAboveThreshold_whenTimelineRead_thenTheirTweetsArePulledAndMerged() throws Exception {
+        loadGraph();
+        sut.getHomeTimeline(DUDE, null, 10);
+        Tweet fromDonny = post(DONNY, "pushed");
+        sut.fanOut(fromDonny).get(5, TimeUnit.SECONDS);
+        Tweet fromWalter = post(WALTER, "pulled");
+        sut.fanOut(fromWalter).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(fromWalter, fromDonny), sut.getHomeTimeline(DUDE, null, 10).items());
+    }
+
+    @Test
+    void givenUnfollowedAuthor_whenTimelineRead_thenTheirBufferedTweetsAreDropped() throws Exception {
+        loadGraph();
+        sut.getHomeTimeline(DUDE, null, 10);
+        Tweet fromDonny = post(DONNY, "soon unfollowed");
+        sut.fanOut(fromDonny).get(5, TimeUnit.SECONDS);
+
+        followGraph.unfollow(DUDE, DONNY);
+
+        assertTrue(sut.getHomeTimeline(DUDE, null, 10).items().isEmpty());
+    }
+
+    @Test
+    void givenMoreTweetsThanTheBufferHolds_whenPagingToTheEnd_thenOlderPagesComeFromTheDatabase() {
+        loadGraph();
+        List<Tweet> posted = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            posted.add(0, post(DONNY, "tweet " + i));
+        }
+
+        List<Tweet> read = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Tweet> page = sut.getHomeTimeline(DUDE, cursor, 2);
+            read.addAll(page.items());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(posted, read);
+    }
+
+    @Test
+    void givenFollowGraphNotLoaded_whenTimelineRead_thenFolloweesComeFromTheDatabase() {
+        when(followRepository.findFolloweeIds(DUDE)).thenReturn(List.of(DONNY));
+        Tweet fromDonny = post(DONNY, "from the database");
+        post(JESUS, "not followed");
+
+        assertEquals(List.of(fromDonny), sut.getHomeTimeline(DUDE, null, 10).items());
+    }
+
+    private void loadGraph() {
+        followGraph.finishLoading();
+        followGraph.follow(DUDE, WALTER);
+        followGraph.follow(DONNY, WALTER);
+        followGraph.follow(JESUS, WALTER);
+        followGraph.follow(DUDE, DONNY);
+    }
+
+    private Tweet post(UUID author, String content) {
+        Tweet tweet = new Tweet(nextId++, author, content);
+        tweets.put(tweet.getTweetId(), tweet);
+        return tweet;
+    }
+
+}
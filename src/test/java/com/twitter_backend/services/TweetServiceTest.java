@@ -0,0 +1,111 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.exceptions.InvalidCursorException;
+import com.twitter_backend.exceptions.InvalidTweetException;
+import com.twitter_backend.exceptions.TweetDoesntExistException;
+import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.CursorPage;
+import com.twitter_backend.models.PageCursor;
+import com.twitter_backend.models.Tweet;
+import com.twitter_backend.models.idGenerators.SnowflakeIdFactory;
+import com.twitter_backend.repositories.TweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TweetServiceTest {
+
+    private static final UUID DUDE_ID = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000001");
+
+    private TweetRepository tweetRepository;
+    private TimelineService timelineService;
+    private TweetService sut;
+
+    @BeforeEach
+    void setUp() {
+        tweetRepository = mock(TweetRepository.class);
+        UserService userService = mock(UserService.class);
+        ApplicationUser dude = new ApplicationUser();
+        dude.setUserId(DUDE_ID);
+        when(userService.getUserByUsername("TheDude")).thenReturn(dude);
+        when(tweetRepository.save(any(Tweet.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        timelineService = mock(TimelineService.class);
+        sut = new TweetService(tweetRepository, userService, new SnowflakeIdFactory(7), timelineService,
+                new RecentWriteTracker(5000, 1000));
+    }
+
+    @Test
+    void givenValidContent_whenPostTweet_thenSavedAsNewWithSnowflakeId() {
+        Tweet tweet = sut.postTweet("TheDude", "The Dude abides");
+
+        assertEquals(DUDE_ID, tweet.getAuthorId());
+        assertEquals(7, SnowflakeIdFactory.nodeIdOf(tweet.getTweetId()));
+        assertTrue(tweet.isNew());
+        verify(tweetRepository).save(tweet);
+        verify(timelineService).fanOut(tweet);
+    }
+
+    @Test
+    void givenBlankOrTooLongContent_whenPostTweet_thenThrowsInvalidTweet() {
+        assertThrows(InvalidTweetException.class, () -> sut.postTweet("TheDude", " "));
+        assertThrows(InvalidTweetException.class, () -> sut.postTweet("TheDude", "a".repeat(281)));
+        verify(tweetRepository, never()).save(any());
+    }
+
+    @Test
+    void givenEmojiContent_whenPostTweet_thenCountedInCodePoints() {
+        assertDoesNotThrow(() -> sut.postTweet("TheDude", "🎳".repeat(280)));
+    }
+
+    @Test
+    void givenMissingTweet_whenGetTweet_thenThrowsTweetDoesntExist() {
+        when(tweetRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(TweetDoesntExistException.class, () -> sut.getTweet(1L));
+    }
+
+    @Test
+    void givenNoCursor_whenGetTweetsByUser_thenNewestPageIsRequestedWithClampedLimit() {
+        when(tweetRepository.findByAuthorIdAndTweetIdLessThanOrderByTweetIdDesc(DUDE_ID, Long.MAX_VALUE,
+                Limit.of(TweetService.MAX_PAGE_SIZE + 1))).thenReturn(List.of());
+
+        CursorPage<Tweet> page = sut.getTweetsByUser("TheDude", null, 10_000);
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void givenMoreTweetsThanTheLimit_whenGetTweetsByUser_thenNextCursorContinuesAfterTheLastOne() {
+        when(tweetRepository.findByAuthorIdAndTweetIdLessThanOrderByTweetIdDesc(DUDE_ID, Long.MAX_VALUE,
+                Limit.of(3))).thenReturn(List.of(new Tweet(30L, DUDE_ID, "c"), new Tweet(20L, DUDE_ID, "b"),
+                        new Tweet(10L, DUDE_ID, "a")));
+        when(tweetRepository.findByAuthorIdAndTweetIdLessThanOrderByTweetIdDesc(DUDE_ID, 20L, Limit.of(3)))
+                .thenReturn(List.of(new Tweet(10L, DUDE_ID, "a")));
+
+        CursorPage<Tweet> first = sut.getTweetsByUser("TheDude", null, 2);
+        CursorPage<Tweet> second = sut.getTweetsByUser("TheDude", first.nextCursor(), 2);
+
+        assertEquals(2, first.items().size());
+        assertNotNull(first.nextCursor());
+        assertEquals(10L, second.items().get(0).getTweetId());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void givenCursorFromAnotherListing_whenGetTweetsByUser_thenThrowsInvalidCursor() {
+        String usersCursor = PageCursor.encode("users", "TheDude1");
+
+        assertThrows(InvalidCursorException.class, () -> sut.getTweetsByUser("TheDude", usersCursor, 2));
+        assertThrows(InvalidCursorException.class, () -> sut.getTweetsByUser("TheDude", "%%%", 2));
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.twitter_backend.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.twitter_backend.models.UserExportFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserExportServiceTest {
+
+    private static final UUID DUDE_ID = UUID.fromString("0190a6f2-7c3e-7000-8000-000000000001");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private UserExportService sut;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS users (user_id BINARY(16), username VARCHAR(255), "
+                + "first_name VARCHAR(255), last_name VARCHAR(255), email VARCHAR(255), phone_number VARCHAR(255), "
+                + "date_of_birth DATE, enabled BOOLEAN, password VARCHAR(255), created_at TIMESTAMP)");
+        jdbcTemplate.execute("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", bytesOf(DUDE_ID),
+                "TheDude1", "The", "Dude, Jr.", "dude@example.com", null, Date.valueOf("1970-01-01"),
+                true, "secret", Timestamp.from(Instant.parse("2025-01-01T00:00:00Z")));
+        jdbcTemplate.update("INSERT INTO users VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", bytesOf(UUID.randomUUID()),
+                "Walter1", "Walter", "Sobchak", "walter@example.com", null, null, false, "secret",
+                Timestamp.from(Instant.parse("2025-06-01T00:00:00Z")));
+
+        sut = new UserExportService(jdbcTemplate, objectMapper, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void givenUsers_whenExportNdjson_thenOneObjectPerLineWithoutPasswords() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = sut.export(UserExportFormat.NDJSON, null, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        JsonNode dude = objectMapper.readTree(lines[0]);
+        assertEquals(DUDE_ID.toString(), dude.get("userId").asText());
+        assertEquals("1970-01-01", dude.get("dateOfBirth").asText());
+        assertEquals("2025-01-01T00:00:00Z", dude.get("createdAt").asText());
+        assertTrue(dude.get("enabled").asBoolean());
+        assertFalse(lines[0].contains("secret"));
+    }
+
+    @Test
+    void givenTimeWindow_whenExportCsv_thenOnlyUsersCreatedInsideAreWritten() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = sut.export(UserExportFormat.CSV, Instant.parse("2024-12-01T00:00:00Z"),
+                Instant.parse("2025-02-01T00:00:00Z"), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, rows);
+        assertTrue(lines[0].startsWith("userId,username,"));
+        assertTrue(lines[1].contains(",\"Dude, Jr.\","));
+    }
+
+    @Test
+    void givenQuoteInValue_whenEscaped_thenQuotesAreDoubled() {
+        assertEquals("\"say \"\"hi\"\"\"", UserExportService.escape("say \"hi\""));
+        assertEquals("plain", UserExportService.escape("plain"));
+    }
+
+    private static byte[] bytesOf(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits()).array();
+    }
+
+}
@@ -2,21 +2,33 @@ package com.twitter_backend.services;
 
 import com.twitter_backend.exceptions.EmailAlreadyExistsException;
 import com.twitter_backend.exceptions.EmailFailedToSendException;
+import com.twitter_backend.exceptions.IncorrectPasswordException;
+import com.twitter_backend.exceptions.IncorrectVerificationCodeException;
+import com.twitter_backend.exceptions.InvalidUserUpdateException;
+import com.twitter_backend.exceptions.TooManyVerificationAttemptsException;
 import com.twitter_backend.exceptions.UserDoesntExistException;
+import com.twitter_backend.exceptions.UsernameAllocationFailedException;
 import com.twitter_backend.models.ApplicationUser;
+import com.twitter_backend.models.CursorPage;
 import com.twitter_backend.models.RegistrationObject;
 import com.twitter_backend.models.Role;
-import com.twitter_backend.repositories.RoleRepository;
+import com.twitter_backend.models.UserProfile;
+import com.twitter_backend.models.UserSummary;
 import com.twitter_backend.repositories.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
 import java.sql.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,11 +42,23 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
     @Mock
     private ApplicationUser applicationUser;
     @Mock
     private MailService mailService;
+    @Mock
+    private UsernameAllocator usernameAllocator;
+    @Mock
+    private UserCache userCache;
+    @Mock
+    private PasswordHashingService passwordHashingService;
+    @Mock
+    private VerificationCodeStore verificationCodeStore;
+    @Mock
+    private RecentWriteTracker recentWriteTracker;
+    @Mock
+    private AvailabilityService availabilityService;
 
     @InjectMocks
     private UserService sut;
@@ -42,6 +66,9 @@ public class UserServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(recentWriteTracker.read(any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(availabilityService.isEmailAvailable(any())).thenReturn(true);
     }
 
     @Test
@@ -53,25 +80,38 @@ public class UserServiceTest {
         registrationObject.setEmail("dude@example.com");
         registrationObject.setDateOfBirth(Date.valueOf("1970-01-01"));
 
-        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
-        when(roleRepository.findByAuthority("USER")).thenReturn(Optional.of(new Role(1, "USER")));
+        when(usernameAllocator.allocate("TheDudeDudeson")).thenReturn("TheDudeDudeson123");
+        when(roleRegistry.getByAuthority("USER")).thenReturn(new Role(1, "USER"));
         when(userRepository.save(any(ApplicationUser.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         ApplicationUser savedUser = sut.registerUser(registrationObject);
 
         assertTrue(savedUser.getUsername().contains(registrationObject.getFirstName()));
         assertTrue(savedUser.getAuthorities().stream().anyMatch(role -> role.getAuthority().equals("USER")));
+        assertEquals(1L << 1, savedUser.getAuthorityMask());
+        verify(availabilityService).recordUser("dude@example.com", "TheDudeDudeson123");
         verify(userRepository, atLeastOnce()).save(any(ApplicationUser.class));
     }
 
+    @Test
+    void givenTakenEmail_whenRegisterUser_thenRejectedBeforeAnyInsert() {
+        RegistrationObject registrationObject = new RegistrationObject("TheDude", "Dudeson", "dude@example.com",
+                Date.valueOf("1970-01-01"));
+        when(availabilityService.isEmailAvailable("dude@example.com")).thenReturn(false);
+
+        assertThrows(EmailAlreadyExistsException.class, () -> sut.registerUser(registrationObject));
+        verify(userRepository, never()).save(any());
+        verifyNoInteractions(usernameAllocator);
+    }
+
     @Test
     void givenRoleNotFound_whenRegisterUser_thenThrowsNoSuchElement() {
         RegistrationObject registrationObject = new RegistrationObject();
         registrationObject.setFirstName("TheDude");
         registrationObject.setLastName("Dudeson");
 
-        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
-        when(roleRepository.findByAuthority("USER")).thenReturn(Optional.empty());
+        when(usernameAllocator.allocate("TheDudeDudeson")).thenReturn("TheDudeDudeson123");
+        when(roleRegistry.getByAuthority("USER")).thenThrow(new NoSuchElementException());
 
         assertThrows(NoSuchElementException.class, () -> sut.registerUser(registrationObject));
     }
@@ -82,66 +122,99 @@ public class UserServiceTest {
         registrationObject.setFirstName("TheDude");
         registrationObject.setLastName("Dudeson");
 
-        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
-        when(roleRepository.findByAuthority("USER")).thenReturn(Optional.of(new Role(1, "USER")));
+        when(usernameAllocator.allocate("TheDudeDudeson")).thenReturn("TheDudeDudeson123");
+        when(roleRegistry.getByAuthority("USER")).thenReturn(new Role(1, "USER"));
         when(userRepository.save(any(ApplicationUser.class))).thenThrow(new RuntimeException());
 
         assertThrows(EmailAlreadyExistsException.class, () -> sut.registerUser(registrationObject));
     }
 
     @Test
-    void givenExistingUser_whenGenerateUserVerification_thenEmailSentAndUserSaved() throws Exception {
-        ApplicationUser user = new ApplicationUser();
-        user.setUsername("TheDude");
-        user.setEmail("dude@example.com");
-        when(userRepository.findByUsername("TheDude")).thenReturn(Optional.of(user));
-        doNothing().when(mailService).sendGmail(anyString(), anyString(), anyString());
+    void givenUsernameRace_whenRegisterUser_thenRetriesWithNewUsername() {
+        RegistrationObject registrationObject = new RegistrationObject();
+        registrationObject.setFirstName("TheDude");
+        registrationObject.setLastName("Dudeson");
+        registrationObject.setEmail("dude@example.com");
+
+        when(usernameAllocator.allocate("TheDudeDudeson")).thenReturn("TheDudeDudeson1", "TheDudeDudeson2");
+        when(roleRegistry.getByAuthority("USER")).thenReturn(new Role(1, "USER"));
+        when(userRepository.existsByEmail("dude@example.com")).thenReturn(false);
+        when(userRepository.save(any(ApplicationUser.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        ApplicationUser savedUser = sut.registerUser(registrationObject);
+
+        assertEquals("TheDudeDudeson2", savedUser.getUsername());
+        verify(userRepository, times(2)).save(any(ApplicationUser.class));
+    }
+
+    @Test
+    void givenDuplicateEmail_whenRegisterUser_thenThrowsEmailAlreadyExistsWithoutRetry() {
+        RegistrationObject registrationObject = new RegistrationObject();
+        registrationObject.setFirstName("TheDude");
+        registrationObject.setLastName("Dudeson");
+        registrationObject.setEmail("dude@example.com");
+
+        when(usernameAllocator.allocate("TheDudeDudeson")).thenReturn("TheDudeDudeson1");
+        when(roleRegistry.getByAuthority("USER")).thenReturn(new Role(1, "USER"));
+        when(userRepository.existsByEmail("dude@example.com")).thenReturn(true);
+        when(userRepository.save(any(ApplicationUser.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        assertThrows(EmailAlreadyExistsException.class, () -> sut.registerUser(registrationObject));
+        verify(userRepository, times(1)).save(any(ApplicationUser.class));
+    }
+
+    @Test
+    void givenUsernameRaceKeepsFailing_whenRegisterUser_thenThrowsUsernameAllocationFailed() {
+        RegistrationObject registrationObject = new RegistrationObject();
+        registrationObject.setFirstName("TheDude");
+        registrationObject.setLastName("Dudeson");
+        registrationObject.setEmail("dude@example.com");
+
+        when(usernameAllocator.allocate("TheDudeDudeson")).thenReturn("TheDudeDudeson1");
+        when(roleRegistry.getByAuthority("USER")).thenReturn(new Role(1, "USER"));
+        when(userRepository.save(any(ApplicationUser.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        assertThrows(UsernameAllocationFailedException.class, () -> sut.registerUser(registrationObject));
+        verify(userRepository, times(3)).save(any(ApplicationUser.class));
+    }
+
+    @Test
+    void givenExistingUser_whenGenerateUserVerification_thenEmailQueuedAndUserNotSaved() throws Exception {
+        when(userRepository.findSummaryByUsername("TheDude")).thenReturn(Optional.of(theDudeSummary()));
+        when(verificationCodeStore.issue("TheDude")).thenReturn(123456789L);
 
         sut.generateUserVerification("TheDude");
 
-        assertNotNull(user.getVerification());
-        verify(mailService).sendGmail(
+        verify(mailService).queueGmail(
                 eq("dude@example.com"),
                 eq("Your verification code"),
-                contains(user.getVerification().toString()));
-        verify(userRepository).save(user);
+                contains("123456789"));
+        verify(userRepository, never()).save(any());
     }
 
     @Test
     void givenNonExistingUser_whenGenerateUserVerification_thenThrowsUserDoesntExistException() {
-        when(userRepository.findByUsername("notTheDude")).thenReturn(Optional.empty());
+        when(userRepository.findSummaryByUsername("notTheDude")).thenReturn(Optional.empty());
 
         assertThrows(UserDoesntExistException.class,
                 () -> sut.generateUserVerification("notTheDude"));
         verifyNoInteractions(mailService);
-        verify(userRepository, never()).save(any());
+        verifyNoInteractions(verificationCodeStore);
     }
 
     @Test
     void givenExistingUser_whenEmailFails_thenThrowsEmailFailedToSendException() throws Exception {
-        ApplicationUser user = new ApplicationUser();
-        user.setUsername("TheDude");
-        user.setEmail("dude@example.com");
-        when(userRepository.findByUsername("TheDude")).thenReturn(Optional.of(user));
+        when(userRepository.findSummaryByUsername("TheDude")).thenReturn(Optional.of(theDudeSummary()));
         doThrow(new RuntimeException("Mail error"))
-                .when(mailService).sendGmail(anyString(), anyString(), anyString());
+                .when(mailService).queueGmail(anyString(), anyString(), anyString());
 
         assertThrows(EmailFailedToSendException.class,
                 () -> sut.generateUserVerification("TheDude"));
-        verify(userRepository, never()).save(user);
-    }
-
-    @Test
-    void givenExistingUser_whenGenerateUserVerification_thenVerificationNumberMatchesPattern() throws Exception {
-        ApplicationUser user = new ApplicationUser();
-        user.setUsername("TheDude");
-        user.setEmail("dude@example.com");
-        when(userRepository.findByUsername("TheDude")).thenReturn(Optional.of(user));
-        doNothing().when(mailService).sendGmail(anyString(), anyString(), anyString());
-
-        sut.generateUserVerification("TheDude");
-
-        assertTrue(user.getVerification().toString().matches("\\d+"));
+        verify(verificationCodeStore).remove("TheDude");
     }
 
     @Test
@@ -164,16 +237,189 @@ public class UserServiceTest {
     }
 
     @Test
-    void givenCorrectVerificationCode_whenVerifyEmail_thenEnableUser() throws Exception {
+    void givenValidUser_whenUpdateUser_thenCachedUserIsInvalidated() {
         ApplicationUser user = new ApplicationUser();
-        user.setVerification(123L);
-        when(userRepository.findByUsername("TheDude")).thenReturn(Optional.of(user));
+        user.setUsername("TheDude");
         when(userRepository.save(user)).thenReturn(user);
 
-        ApplicationUser result = sut.verifyEmail("TheDude", 123L);
+        sut.updateUser(user);
+
+        verify(userCache).invalidate("TheDude");
+    }
+
+    @Test
+    void givenCachedUser_whenGetUserByUsername_thenUserComesFromCache() {
+        ApplicationUser user = new ApplicationUser();
+        when(userCache.get(eq("TheDude"), any())).thenReturn(user);
+
+        assertEquals(user, sut.getUserByUsername("TheDude"));
+    }
+
+    @Test
+    void givenUnknownUser_whenGetUserByUsername_thenThrowsUserDoesntExist() {
+        when(userCache.get(eq("notTheDude"), any())).thenReturn(null);
+
+        assertThrows(UserDoesntExistException.class, () -> sut.getUserByUsername("notTheDude"));
+    }
+
+    @Test
+    void givenExistingUser_whenGetProfile_thenProfileProjectionIsReturned() {
+        UserProfile profile = new UserProfile(null, "TheDude", "TheDude", "Dudeson");
+        when(userRepository.findProfileByUsername("TheDude")).thenReturn(Optional.of(profile));
+
+        assertEquals(profile, sut.getProfile("TheDude"));
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void givenUnknownUser_whenGetProfile_thenThrowsUserDoesntExist() {
+        when(userRepository.findProfileByUsername("notTheDude")).thenReturn(Optional.empty());
+
+        assertThrows(UserDoesntExistException.class, () -> sut.getProfile("notTheDude"));
+    }
+
+    @Test
+    void givenMoreUsersThanTheLimit_whenListUsers_thenNextCursorContinuesAfterTheLastUsername() {
+        UserProfile dude = new UserProfile(null, "TheDude1", "The", "Dude");
+        UserProfile walter = new UserProfile(null, "Walter1", "Walter", "Sobchak");
+        when(userRepository.findProfilesByUsernameGreaterThanOrderByUsernameAsc("", Limit.of(2)))
+                .thenReturn(List.of(dude, walter));
+        when(userRepository.findProfilesByUsernameGreaterThanOrderByUsernameAsc("TheDude1", Limit.of(2)))
+                .thenReturn(List.of(walter));
+
+        CursorPage<UserProfile> first = sut.listUsers(null, 1);
+        CursorPage<UserProfile> second = sut.listUsers(first.nextCursor(), 1);
+
+        assertEquals(List.of(dude), first.items());
+        assertEquals(List.of(walter), second.items());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void givenCorrectVerificationCode_whenVerifyEmail_thenEnableUser() throws Exception {
+        when(verificationCodeStore.verify("TheDude", 123L)).thenReturn(VerificationCodeStore.Result.MATCH);
+        when(userRepository.updateFieldsByUsername("TheDude", Map.of("enabled", true)))
+                .thenReturn(Optional.of(theDudeSummary()));
+
+        UserSummary result = sut.verifyEmail("TheDude", 123L);
+
+        assertEquals("TheDude", result.username());
+        verify(userRepository).updateFieldsByUsername("TheDude", Map.of("enabled", true));
+    }
+
+    @Test
+    void givenWrongVerificationCode_whenVerifyEmail_thenThrowsIncorrectVerificationCode() {
+        when(verificationCodeStore.verify("TheDude", 321L)).thenReturn(VerificationCodeStore.Result.MISMATCH);
+
+        assertThrows(IncorrectVerificationCodeException.class, () -> sut.verifyEmail("TheDude", 321L));
+        verify(userRepository, never()).updateFieldsByUsername(anyString(), any());
+    }
+
+    @Test
+    void givenTooManyWrongCodes_whenVerifyEmail_thenThrowsTooManyVerificationAttempts() {
+        when(verificationCodeStore.verify("TheDude", 321L))
+                .thenReturn(VerificationCodeStore.Result.TOO_MANY_ATTEMPTS);
+
+        assertThrows(TooManyVerificationAttemptsException.class, () -> sut.verifyEmail("TheDude", 321L));
+    }
+
+    private UserSummary theDudeSummary() {
+        return new UserSummary(null, "TheDude", "Dudeson", "dude@example.com", null, null, "TheDude", false);
+    }
+
+    @Test
+    void givenExistingUser_whenPatchUser_thenOnlyChangedFieldsAreUpdated() {
+        UserSummary summary = new UserSummary(null, "TheDude", "Dudeson", "dude@example.com", "0701234567",
+                null, "TheDude", true);
+        when(userRepository.updateFieldsByUsername("TheDude", Map.of("phoneNumber", "0701234567")))
+                .thenReturn(Optional.of(summary));
+
+        UserSummary result = sut.patchUser("TheDude", Map.of("phoneNumber", "0701234567"));
+
+        assertEquals(summary, result);
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userRepository, never()).save(any());
+        // The updated user is returned by the update itself, not read back
+        verify(userRepository, never()).findSummaryByUsername(anyString());
+        verify(userCache).invalidate("TheDude");
+        verify(recentWriteTracker).recordWrite("TheDude");
+    }
+
+    @Test
+    void givenNoRowUpdated_whenPatchUser_thenThrowsUserDoesntExist() {
+        when(userRepository.updateFieldsByUsername(eq("notTheDude"), any())).thenReturn(Optional.empty());
+
+        assertThrows(UserDoesntExistException.class,
+                () -> sut.patchUser("notTheDude", Map.of("phoneNumber", "0701234567")));
+    }
+
+    @Test
+    void givenDuplicateEmail_whenPatchUser_thenThrowsEmailAlreadyExists() {
+        when(userRepository.updateFieldsByUsername(eq("TheDude"), any()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        assertThrows(EmailAlreadyExistsException.class,
+                () -> sut.patchUser("TheDude", Map.of("email", "taken@example.com")));
+    }
+
+    @Test
+    void givenUnknownField_whenPatchUser_thenThrowsInvalidUserUpdate() {
+        assertThrows(InvalidUserUpdateException.class,
+                () -> sut.patchUser("TheDude", Map.of("password", "hunter2")));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void givenNewPassword_whenSetPassword_thenEncodedPasswordIsUpdated() {
+        when(passwordHashingService.encode("hunter2")).thenReturn("{bcrypt}hash");
+        when(userRepository.updateFieldsByUsername("TheDude", Map.of("password", "{bcrypt}hash"))).thenReturn(
+                Optional.of(new UserSummary(null, "TheDude", "Dudeson", null, null, null, "TheDude", true)));
+
+        sut.setPassword("TheDude", "hunter2");
+
+        verify(userRepository).updateFieldsByUsername("TheDude", Map.of("password", "{bcrypt}hash"));
+    }
+
+    @Test
+    void givenHashWithOldCost_whenLogin_thenPasswordIsRehashed() {
+        when(userRepository.findPasswordByUsername("TheDude")).thenReturn(Optional.of("$2a$08$oldhash"));
+        when(passwordHashingService.matches("hunter2", "$2a$08$oldhash")).thenReturn(true);
+        when(passwordHashingService.upgradeEncoding("$2a$08$oldhash")).thenReturn(true);
+        when(passwordHashingService.encode("hunter2")).thenReturn("{bcrypt}$2a$12$newhash");
+        when(userRepository.updateFieldsByUsername(eq("TheDude"), any())).thenReturn(
+                Optional.of(new UserSummary(null, "TheDude", "Dudeson", null, null, null, "TheDude", true)));
+
+        sut.login("TheDude", "hunter2");
+
+        verify(userRepository).updateFieldsByUsername("TheDude", Map.of("password", "{bcrypt}$2a$12$newhash"));
+    }
+
+    @Test
+    void givenCurrentHash_whenLogin_thenPasswordIsNotRehashed() {
+        when(userRepository.findPasswordByUsername("TheDude")).thenReturn(Optional.of("{bcrypt}hash"));
+        when(passwordHashingService.matches("hunter2", "{bcrypt}hash")).thenReturn(true);
+        when(userRepository.findSummaryByUsername("TheDude")).thenReturn(Optional.of(
+                new UserSummary(null, "TheDude", "Dudeson", null, null, null, "TheDude", true)));
+
+        sut.login("TheDude", "hunter2");
+
+        verify(passwordHashingService, never()).encode(anyString());
+        verify(userRepository, never()).updateFieldsByUsername(anyString(), any());
+    }
+
+    @Test
+    void givenUnknownUser_whenLogin_thenThrowsIncorrectPassword() {
+        when(userRepository.findPasswordByUsername("notTheDude")).thenReturn(Optional.empty());
+
+        assertThrows(IncorrectPasswordException.class, () -> sut.login("notTheDude", "hunter2"));
+    }
+
+    @Test
+    void givenWrongPassword_whenLogin_thenThrowsIncorrectPassword() {
+        when(userRepository.findPasswordByUsername("TheDude")).thenReturn(Optional.of("{bcrypt}hash"));
+        when(passwordHashingService.matches("wrong", "{bcrypt}hash")).thenReturn(false);
 
-        assertTrue(result.isEnabled());
-        assertNull(result.getVerification());
+        assertThrows(IncorrectPasswordException.class, () -> sut.login("TheDude", "wrong"));
     }
 
 }
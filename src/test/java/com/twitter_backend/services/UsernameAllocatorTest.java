@@ -0,0 +1,99 @@
+package com.twitter_backend.services;
+
+import com.twitter_backend.exceptions.UsernameAllocationFailedException;
+import com.twitter_backend.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class UsernameAllocatorTest {
+
+    private UserRepository userRepository;
+    private AvailabilityService availabilityService;
+    private UsernameAllocator sut;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        availabilityService = mock(AvailabilityService.class);
+        sut = new UsernameAllocator(userRepository, availabilityService, 8);
+    }
+
+    @Test
+    void givenNoTakenCandidates_whenAllocate_thenOneQueryIsUsed() {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+
+        String username = sut.allocate("TheDudeDudeson");
+
+        assertTrue(username.matches("TheDudeDudeson\\d+"));
+        verify(userRepository, times(1)).findExistingUsernames(anyCollection());
+    }
+
+    @Test
+    void givenCandidateKnownFreeByFilter_whenAllocate_thenNoQueryIsUsed() {
+        when(availabilityService.isUsernameDefinitelyFree(anyString())).thenReturn(true);
+
+        String username = sut.allocate("TheDudeDudeson");
+
+        assertTrue(username.matches("TheDudeDudeson\\d+"));
+        verify(userRepository, never()).findExistingUsernames(anyCollection());
+    }
+
+    @Test
+    void givenSomeTakenCandidates_whenAllocate_thenFirstFreeCandidateIsReturned() {
+        List<List<String>> queried = new ArrayList<>();
+        when(userRepository.findExistingUsernames(anyCollection())).thenAnswer(invocation -> {
+            List<String> candidates = List.copyOf(invocation.<Collection<String>>getArgument(0));
+            queried.add(candidates);
+            return candidates.subList(0, 3);
+        });
+
+        String username = sut.allocate("TheDudeDudeson");
+
+        assertEquals(1, queried.size());
+        assertEquals(queried.get(0).get(3), username);
+    }
+
+    @Test
+    void givenManyBaseNames_whenAllocateAll_thenOneQueryCoversTheBatch() {
+        when(userRepository.findExistingUsernames(anyCollection())).thenReturn(List.of());
+
+        List<String> usernames = sut.allocateAll(List.of("TheDudeDudeson", "TheDudeDudeson", "WalterSobchak"));
+
+        assertEquals(3, usernames.size());
+        assertTrue(usernames.get(0).matches("TheDudeDudeson\\d+"));
+        assertTrue(usernames.get(1).matches("TheDudeDudeson\\d+"));
+        assertTrue(usernames.get(2).matches("WalterSobchak\\d+"));
+        assertNotEquals(usernames.get(0), usernames.get(1));
+        verify(userRepository, times(1)).findExistingUsernames(anyCollection());
+    }
+
+    @Test
+    void givenConsecutiveAllocations_whenAllocate_thenCandidatesDontOverlap() {
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            for (String candidate : sut.nextCandidates("TheDudeDudeson")) {
+                assertTrue(seen.add(candidate), "Candidate handed out twice: " + candidate);
+            }
+        }
+    }
+
+    @Test
+    void givenEveryCandidateTaken_whenAllocate_thenThrowsUsernameAllocationFailed() {
+        when(userRepository.findExistingUsernames(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<String>>getArgument(0)));
+
+        assertThrows(UsernameAllocationFailedException.class, () -> sut.allocate("TheDudeDudeson"));
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.twitter_backend.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificationCodeStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private VerificationCodeStore sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new VerificationCodeStore(now::get, 60_000L, 3, "");
+    }
+
+    @Test
+    void givenIssuedCode_whenVerifiedWithSameCode_thenMatchesOnce() {
+        long code = sut.issue("TheDude");
+
+        assertEquals(VerificationCodeStore.Result.MATCH, sut.verify("TheDude", code));
+        assertEquals(VerificationCodeStore.Result.MISSING_OR_EXPIRED, sut.verify("TheDude", code));
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    void givenExpiredCode_whenVerified_thenMissingOrExpired() {
+        long code = sut.issue("TheDude");
+        now.addAndGet(60_000L);
+
+        assertEquals(VerificationCodeStore.Result.MISSING_OR_EXPIRED, sut.verify("TheDude", code));
+    }
+
+    @Test
+    void givenTooManyWrongCodes_whenVerifiedWithRightCode_thenStillRejected() {
+        long code = sut.issue("TheDude");
+        long wrong = code + 1;
+
+        assertEquals(VerificationCodeStore.Result.MISMATCH, sut.verify("TheDude", wrong));
+        assertEquals(VerificationCodeStore.Result.MISMATCH, sut.verify("TheDude", wrong));
+        assertEquals(VerificationCodeStore.Result.TOO_MANY_ATTEMPTS, sut.verify("TheDude", wrong));
+        assertEquals(VerificationCodeStore.Result.TOO_MANY_ATTEMPTS, sut.verify("TheDude", code));
+    }
+
+    @Test
+    void givenNewCodeIssued_whenVerified_thenOldCodeNoLongerMatches() {
+        long first = sut.issue("TheDude");
+        long second = sut.issue("TheDude");
+
+        if (first != second) {
+            assertEquals(VerificationCodeStore.Result.MISMATCH, sut.verify("TheDude", first));
+        }
+        assertEquals(VerificationCodeStore.Result.MATCH, sut.verify("TheDude", second));
+    }
+
+    @Test
+    void givenExpiredEntries_whenPurged_thenOnlyLiveEntriesRemain() {
+        sut.issue("TheDude");
+        now.addAndGet(30_000L);
+        sut.issue("Walter");
+        now.addAndGet(30_000L);
+
+        sut.purgeExpired();
+
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    void givenSnapshot_whenRestoredIntoNewStore_thenPendingCodesSurvive() throws Exception {
+        long code = sut.issue("TheDude");
+        sut.verify("TheDude", code + 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.snapshot(out);
+
+        VerificationCodeStore restored = new VerificationCodeStore(now::get, 60_000L, 3, "");
+        restored.restore(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(1, restored.size());
+        assertEquals(VerificationCodeStore.Result.MISMATCH, restored.verify("TheDude", code + 1));
+        assertEquals(VerificationCodeStore.Result.TOO_MANY_ATTEMPTS, restored.verify("TheDude", code + 1));
+    }
+}